@@ -4,6 +4,7 @@ import com.mojang.logging.LogUtils;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
 import fr.thegostsniperfr.arffornia.block.ModBlocks;
 import fr.thegostsniperfr.arffornia.block.entity.ModBlockEntities;
+import fr.thegostsniperfr.arffornia.block.entity.SpaceElevatorBlockEntity;
 import fr.thegostsniperfr.arffornia.command.ArfforniaCommand;
 import fr.thegostsniperfr.arffornia.compat.ftbteams.FTBTeamsEventHandler;
 import fr.thegostsniperfr.arffornia.config.ApiConfig;
@@ -65,6 +66,8 @@ public class Arffornia {
         NeoForge.EVENT_BUS.register(RecipeBanManager.class);
         NeoForge.EVENT_BUS.register(CustomRecipeManager.class);
 
+        ArfforniaApiService.getInstance().getMutationQueue().addLateOutcomeListener(SpaceElevatorBlockEntity::onLateLaunchOutcome);
+
         modContainer.registerConfig(ModConfig.Type.COMMON, Config.SPEC, "arffornia-common.toml");
     }
 
@@ -80,19 +83,13 @@ public class Arffornia {
         this.databaseManager = new DatabaseManager();
         this.rewardHandler = new RewardHandler(this.databaseManager, event.getServer());
         ArfforniaCommand.register(event.getServer().getCommands().getDispatcher(), this.rewardHandler);
+        ArfforniaApiService.getInstance().getMutationQueue().start();
     }
 
     @SubscribeEvent
     public void onServerStarted(ServerStartedEvent event) {
-        Arffornia.LOGGER.info("Server has started. Loading initial Arffornia data...");
-
-        try {
-            CustomRecipeManager.loadRecipes().join();
-            Arffornia.LOGGER.info("Custom recipes loaded successfully.");
-        } catch (Exception e) {
-            Arffornia.LOGGER.error("Failed to load initial custom recipes. The mod may not function correctly.", e);
-        }
-
+        // Custom recipes are loaded from the local snapshot on server starting,
+        // then refreshed from the API in the background by CustomRecipeManager.
 
         if (ApiConfig.MIGRATE_ON_STARTUP.get() && !hasAttemptedMigration.getAndSet(true)) {
             Arffornia.LOGGER.info("Run Arffornia custom recipies migration.");
@@ -102,13 +99,14 @@ public class Arffornia {
 
     @SubscribeEvent
     public void onServerStopping(ServerStoppingEvent event) {
-        if (this.databaseManager != null) {
-            this.databaseManager.close();
-        }
-
+        // Reward claims still running need the database, so it is closed once they are done.
         if (this.rewardHandler != null) {
             this.rewardHandler.shutdown();
         }
+
+        if (this.databaseManager != null) {
+            this.databaseManager.close();
+        }
         ArfforniaApiService.getInstance().shutdown();
     }
 
@@ -0,0 +1,160 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
+
+/**
+ * Sends every request to the Arffornia API, so a slow or failing backend cannot pile up work on the server.
+ * <ul>
+ *     <li>each request gets a timeout, depending on whether it reads or writes;</li>
+ *     <li>reads and writes have separate limits of requests in flight, so a burst of one cannot starve the other;</li>
+ *     <li>service token requests have their own small limit, so busy reads or writes cannot block authentication;</li>
+ *     <li>a {@link CircuitBreaker} fails requests immediately while most recent ones failed.</li>
+ * </ul>
+ * A request refused by the limits or by the breaker completes exceptionally with an {@link UnavailableException},
+ * like any other network error.
+ */
+public class ApiGateway {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    /**
+     * Token refreshes are already shared by concurrent callers, so only a few are ever in flight.
+     */
+    private static final int MAX_CONCURRENT_AUTH = 2;
+
+    public enum Kind {
+        READ, WRITE, AUTH
+    }
+
+    /**
+     * Thrown when a request is not sent because the API is considered unavailable or too busy.
+     */
+    public static class UnavailableException extends RuntimeException {
+        public UnavailableException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * @param breaker        The state of the circuit breaker.
+     * @param readsInFlight  The number of read requests in flight.
+     * @param readLimit      The maximum number of read requests in flight.
+     * @param writesInFlight The number of write requests in flight.
+     * @param writeLimit     The maximum number of write requests in flight.
+     * @param rejected       The number of requests refused by the limits or by the breaker since startup.
+     * @param timeouts       The number of requests that timed out since startup.
+     */
+    public record Status(CircuitBreaker.Status breaker, int readsInFlight, int readLimit,
+                         int writesInFlight, int writeLimit, long rejected, long timeouts) {
+    }
+
+    /**
+     * A limit of requests in flight. The limit is read on every request, so config changes apply immediately.
+     */
+    private static class Bulkhead {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final IntSupplier limit;
+
+        private Bulkhead(IntSupplier limit) {
+            this.limit = limit;
+        }
+
+        boolean tryAcquire() {
+            int max = limit.getAsInt();
+            int current;
+            do {
+                current = inFlight.get();
+                if (current >= max) {
+                    return false;
+                }
+            } while (!inFlight.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+    private final CircuitBreaker breaker = new CircuitBreaker();
+    private final Bulkhead reads = new Bulkhead(() -> HTTP_MAX_CONCURRENT_READS.get());
+    private final Bulkhead writes = new Bulkhead(() -> HTTP_MAX_CONCURRENT_WRITES.get());
+    private final Bulkhead auth = new Bulkhead(() -> MAX_CONCURRENT_AUTH);
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    /**
+     * Sends a request, with the timeout of its kind unless it sets its own.
+     * Network errors, timeouts and 5xx responses count as failures for the circuit breaker.
+     *
+     * @param request The request.
+     * @param handler The response body handler.
+     * @param kind    Whether the request reads, writes or authenticates, which selects its timeout and limit.
+     *                Authentication requests use the write timeout.
+     * @return A CompletableFuture containing the response.
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, Kind kind) {
+        Bulkhead bulkhead = switch (kind) {
+            case READ -> reads;
+            case WRITE -> writes;
+            case AUTH -> auth;
+        };
+        if (!bulkhead.tryAcquire()) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new UnavailableException("Too many " + kind.name().toLowerCase() + " requests in flight to the API"));
+        }
+        if (!breaker.tryAcquire()) {
+            bulkhead.release();
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new UnavailableException("API circuit breaker is open"));
+        }
+
+        if (request.timeout().isEmpty()) {
+            int seconds = kind == Kind.READ ? HTTP_READ_TIMEOUT_SECONDS.get() : HTTP_WRITE_TIMEOUT_SECONDS.get();
+            request = HttpRequest.newBuilder(request, (name, value) -> true)
+                    .timeout(Duration.ofSeconds(seconds))
+                    .build();
+        }
+
+        CompletableFuture<HttpResponse<T>> future;
+        try {
+            future = client.sendAsync(request, handler);
+        } catch (RuntimeException e) {
+            bulkhead.release();
+            breaker.onFailure();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future.whenComplete((response, ex) -> {
+            bulkhead.release();
+            if (ex != null) {
+                Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+                if (cause instanceof HttpTimeoutException) {
+                    timeouts.incrementAndGet();
+                }
+                breaker.onFailure();
+            } else if (response.statusCode() >= 500) {
+                breaker.onFailure();
+            } else {
+                breaker.onSuccess();
+            }
+        });
+    }
+
+    public Status getStatus() {
+        return new Status(breaker.getStatus(), reads.inFlight.get(), HTTP_MAX_CONCURRENT_READS.get(),
+                writes.inFlight.get(), HTTP_MAX_CONCURRENT_WRITES.get(), rejected.get(), timeouts.get());
+    }
+}
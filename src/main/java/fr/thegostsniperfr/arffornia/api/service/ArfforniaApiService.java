@@ -5,28 +5,21 @@ import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
-import fr.thegostsniperfr.arffornia.command.management.AddUnlockCommand;
 import fr.thegostsniperfr.arffornia.recipe.CustomRecipeManager;
-import net.minecraft.core.RegistryAccess;
-import net.minecraft.core.registries.BuiltInRegistries;
-import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
-import net.minecraft.world.item.Item;
-import net.minecraft.world.item.ItemStack;
-import net.minecraft.world.item.Items;
 import net.minecraft.world.item.crafting.RecipeHolder;
 import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Type;
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
 
@@ -36,24 +29,68 @@ import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
 public class ArfforniaApiService {
     private static final ArfforniaApiService INSTANCE = new ArfforniaApiService();
 
-    private final HttpClient client = HttpClient.newHttpClient();
+    private final ApiGateway gateway = new ApiGateway();
     private final Gson gson = new Gson();
     private final ExecutorService migrationExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "Arffornia-Migration-Thread"));
+    private final ServiceTokenManager serviceTokenManager = new ServiceTokenManager(gateway, gson);
+    private final RecipeMigrationPipeline migrationPipeline = new RecipeMigrationPipeline(gateway, gson, serviceTokenManager);
+    /**
+     * Progression and team changes, kept in a local journal until the API accepts them.
+     */
+    private final MutationQueue mutationQueue = new MutationQueue(new MutationJournal(gson), this::sendMutation);
+
+    private final ProgressionDataCache progressionCache = new ProgressionDataCache();
+    /**
+     * Maps a player's UUID (without dashes) to their active progression ID, as last seen by fetchPlayerData.
+     * Used to target the progression cache when a player's progression is modified.
+     */
+    private final Map<String, Long> playerProgressionIds = new ConcurrentHashMap<>();
 
-    private final AtomicReference<String> serviceAuthToken = new AtomicReference<>(null);
+    // Concurrent fetches of the same resource share a single HTTP request.
+    private final SingleFlight<String, ArfforniaApiDtos.PlayerData> playerDataFlights = new SingleFlight<>();
+    private final SingleFlight<Long, ArfforniaApiDtos.ProgressionData> progressionDataFlights = new SingleFlight<>();
+    private final SingleFlight<String, ArfforniaApiDtos.GraphData> playerGraphDataFlights = new SingleFlight<>();
+    private final SingleFlight<Integer, ArfforniaApiDtos.MilestoneDetails> milestoneDetailsFlights = new SingleFlight<>();
 
     private ArfforniaApiService() {
+        // A change delivered late may make cached progressions stale, so they are dropped.
+        mutationQueue.addLateOutcomeListener((mutationId, result) -> {
+            if (result == MutationQueue.Result.DELIVERED) {
+                progressionCache.invalidateAll();
+            }
+        });
     }
 
     public static ArfforniaApiService getInstance() {
         return INSTANCE;
     }
 
+    public ApiGateway getGateway() {
+        return gateway;
+    }
+
+    public ProgressionDataCache getProgressionCache() {
+        return progressionCache;
+    }
+
+    public RecipeMigrationPipeline getMigrationPipeline() {
+        return migrationPipeline;
+    }
+
+    public ServiceTokenManager getServiceTokenManager() {
+        return serviceTokenManager;
+    }
+
+    public MutationQueue getMutationQueue() {
+        return mutationQueue;
+    }
+
     /**
-     * Shuts down the migration executor service. Should be called on server stop.
+     * Shuts down the migration executor service and stops sending queued mutations. Should be called on server stop.
      */
     public void shutdown() {
         migrationExecutor.shutdown();
+        mutationQueue.stop();
     }
 
     private HttpRequest buildRequest(URI uri, String token, String jsonBody) {
@@ -73,39 +110,62 @@ public class ArfforniaApiService {
      * @return A CompletableFuture containing the player's data including active progression ID.
      */
     public CompletableFuture<ArfforniaApiDtos.PlayerData> fetchPlayerData(String playerUuid) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL.get() + "/profile/uuid/" + playerUuid))
-                .header("Accept", "application/json")
-                .build();
-
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(HttpResponse::body)
-                .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.PlayerData.class))
-                .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Failed to fetch player data from API for UUID {}: {}", playerUuid, ex.getMessage());
-                    return null;
-                });
+        return playerDataFlights.execute(playerUuid, () -> {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(API_BASE_URL.get() + "/profile/uuid/" + playerUuid))
+                    .header("Accept", "application/json")
+                    .build();
+
+            return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
+                    .thenApply(HttpResponse::body)
+                    .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.PlayerData.class))
+                    .thenApply(playerData -> {
+                        if (playerData != null) {
+                            playerProgressionIds.put(playerUuid, playerData.activeProgressionId());
+                        }
+                        return playerData;
+                    })
+                    .exceptionally(ex -> {
+                        Arffornia.LOGGER.error("Failed to fetch player data from API for UUID {}: {}", playerUuid, ex.getMessage());
+                        return null;
+                    });
+        });
     }
 
     /**
      * Fetches progression data, including the current target milestone.
+     * Results are served from the progression cache while they are fresh.
      *
      * @param progressionId The ID of the progression.
      * @return A CompletableFuture containing the progression data.
      */
     public CompletableFuture<ArfforniaApiDtos.ProgressionData> fetchProgressionData(long progressionId) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL.get() + "/progression/" + progressionId))
-                .header("Accept", "application/json")
-                .build();
+        ArfforniaApiDtos.ProgressionData cached = progressionCache.get(progressionId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
 
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(HttpResponse::body)
-                .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.ProgressionData.class))
-                .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Failed to fetch progression data from API for ID {}: {}", progressionId, ex.getMessage());
-                    return null;
-                });
+        return progressionDataFlights.execute(progressionId, () -> {
+            long cacheGeneration = progressionCache.generation();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(API_BASE_URL.get() + "/progression/" + progressionId))
+                    .header("Accept", "application/json")
+                    .build();
+
+            return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
+                    .thenApply(HttpResponse::body)
+                    .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.ProgressionData.class))
+                    .thenApply(progressionData -> {
+                        if (progressionData != null) {
+                            progressionCache.put(progressionId, progressionData, cacheGeneration);
+                        }
+                        return progressionData;
+                    })
+                    .exceptionally(ex -> {
+                        Arffornia.LOGGER.error("Failed to fetch progression data from API for ID {}: {}", progressionId, ex.getMessage());
+                        return null;
+                    });
+        });
     }
 
     /**
@@ -115,18 +175,20 @@ public class ArfforniaApiService {
      * @return A CompletableFuture containing the player's specific progress data.
      */
     public CompletableFuture<ArfforniaApiDtos.GraphData> fetchPlayerGraphData(String playerUuid) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL.get() + "/stages/player/get/" + playerUuid))
-                .header("Accept", "application/json")
-                .build();
-
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(HttpResponse::body)
-                .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.GraphData.class))
-                .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Failed to fetch player graph data from API for UUID {}: {}", playerUuid, ex.getMessage());
-                    return null;
-                });
+        return playerGraphDataFlights.execute(playerUuid, () -> {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(API_BASE_URL.get() + "/stages/player/get/" + playerUuid))
+                    .header("Accept", "application/json")
+                    .build();
+
+            return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
+                    .thenApply(HttpResponse::body)
+                    .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.GraphData.class))
+                    .exceptionally(ex -> {
+                        Arffornia.LOGGER.error("Failed to fetch player graph data from API for UUID {}: {}", playerUuid, ex.getMessage());
+                        return null;
+                    });
+        });
     }
 
     /**
@@ -136,25 +198,26 @@ public class ArfforniaApiService {
      * @return A CompletableFuture containing the parsed milestone details.
      */
     public CompletableFuture<ArfforniaApiDtos.MilestoneDetails> fetchMilestoneDetails(int nodeId) {
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL.get() + "/milestone/get/" + nodeId))
-                .header("Accept", "application/json")
-                .build();
-
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(HttpResponse::body)
-                .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.MilestoneDetails.class))
-                .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Failed to fetch milestone details from API for node {}: {}", nodeId, ex.getMessage());
-                    return null;
-                });
+        return milestoneDetailsFlights.execute(nodeId, () -> {
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(API_BASE_URL.get() + "/milestone/get/" + nodeId))
+                    .header("Accept", "application/json")
+                    .build();
+
+            return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
+                    .thenApply(HttpResponse::body)
+                    .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.MilestoneDetails.class))
+                    .exceptionally(ex -> {
+                        Arffornia.LOGGER.error("Failed to fetch milestone details from API for node {}: {}", nodeId, ex.getMessage());
+                        return null;
+                    });
+        });
     }
 
     /**
      * Fetches the server's progression configuration, including the list of banned recipes.
-     * This should be called once on server start or /reload.
      *
-     * @return A CompletableFuture containing the parsed progression config.
+     * @return A CompletableFuture containing the parsed progression config, or null if it could not be fetched.
      */
     public CompletableFuture<ArfforniaApiDtos.ProgressionConfig> fetchProgressionConfig() {
         HttpRequest request = HttpRequest.newBuilder()
@@ -162,113 +225,101 @@ public class ArfforniaApiService {
                 .header("Accept", "application/json")
                 .build();
 
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(HttpResponse::body)
-                .thenApply(json -> gson.fromJson(json, ArfforniaApiDtos.ProgressionConfig.class))
+        return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        Arffornia.LOGGER.error("API call to progression/config failed with status: {}", response.statusCode());
+                        return null;
+                    }
+                    return gson.fromJson(response.body(), ArfforniaApiDtos.ProgressionConfig.class);
+                })
                 .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Failed to fetch progression config from API: {}. Banning no recipes.", ex.getMessage());
-                    return new ArfforniaApiDtos.ProgressionConfig(Collections.emptyList());
+                    Arffornia.LOGGER.error("Failed to fetch progression config from API: {}", ex.getMessage());
+                    return null;
                 });
     }
 
     /**
      * Retrieves an authentication token for the game server.
-     * The token is cached.
+     * The token is cached and refreshed before it expires, see {@link ServiceTokenManager}.
      *
      * @return A CompletableFuture containing the token, or null on failure.
      */
     private CompletableFuture<String> getServiceAuthToken() {
-        if (serviceAuthToken.get() != null) {
-            return CompletableFuture.completedFuture(serviceAuthToken.get());
-        }
-
-        String clientId = API_CLIENT_ID.get();
-        String clientSecret = API_CLIENT_SECRET.get();
+        return serviceTokenManager.getToken();
+    }
 
-        JsonObject body = new JsonObject();
-        body.addProperty("client_id", clientId);
-        body.addProperty("client_secret", clientSecret);
+    /**
+     * Sends a request authenticated with the given service token.
+     * If the API rejects the token with a 401, it is refreshed and the request is sent once more with the new token.
+     *
+     * @param request The request, carrying the token in its Authorization header.
+     * @param token   The token used by the request.
+     * @param handler The response body handler.
+     * @param kind    Whether the request reads or writes.
+     * @return A CompletableFuture containing the response of the last attempt.
+     */
+    private <T> CompletableFuture<HttpResponse<T>> sendAuthenticated(HttpRequest request, String token, HttpResponse.BodyHandler<T> handler, ApiGateway.Kind kind) {
+        return gateway.send(request, handler, kind).thenCompose(response -> {
+            if (response.statusCode() != 401) {
+                return CompletableFuture.completedFuture(response);
+            }
 
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(API_BASE_URL.get() + "/auth/token/svc"))
-                .header("Content-Type", "application/json")
-                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
-                .build();
+            serviceTokenManager.invalidate(token);
+            return serviceTokenManager.getToken().thenCompose(newToken -> {
+                if (newToken == null || newToken.equals(token)) {
+                    return CompletableFuture.completedFuture(response);
+                }
 
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
-                .thenApply(response -> {
-                    if (response.statusCode() == 200) {
-                        JsonObject jsonResponse = gson.fromJson(response.body(), JsonObject.class);
-                        String token = jsonResponse.get("token").getAsString();
-                        serviceAuthToken.set(token);
-                        Arffornia.LOGGER.info("Successfully authenticated service account.");
-                        return token;
-                    } else {
-                        Arffornia.LOGGER.error("Failed to authenticate service account. Status: {}, Body: {}", response.statusCode(), response.body());
-                        return null;
-                    }
-                })
-                .exceptionally(ex -> {
-                    Arffornia.LOGGER.error("Could not connect to API to get service auth token: {}", ex.getMessage());
-                    return null;
-                });
+                HttpRequest retry = HttpRequest.newBuilder(request, (name, value) -> !name.equalsIgnoreCase("Authorization"))
+                        .header("Authorization", "Bearer " + newToken)
+                        .build();
+                return gateway.send(retry, handler, kind);
+            });
+        });
     }
 
     /**
-     * Notifies the backend that a player has joined a team.
+     * Sends a journaled mutation, with its idempotency key.
+     *
+     * @return A CompletableFuture containing the response, or null if no auth token is available.
      */
-    public void sendPlayerJoinedTeam(UUID playerUuid, UUID teamUuid, String teamName) {
-        getServiceAuthToken().thenAccept(token -> {
+    private CompletableFuture<HttpResponse<String>> sendMutation(MutationJournal.Entry entry) {
+        return getServiceAuthToken().thenCompose(token -> {
             if (token == null) {
-                Arffornia.LOGGER.warn("Cannot send player-joined-team update, no auth token available.");
-                return;
+                return CompletableFuture.completedFuture(null);
             }
 
-            JsonObject body = new JsonObject();
-            body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
-            body.addProperty("team_uuid", teamUuid.toString());
-            body.addProperty("team_name", teamName);
-
-            HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/teams/player/join"), token, gson.toJson(body));
+            HttpRequest request = HttpRequest.newBuilder(this.buildRequest(URI.create(API_BASE_URL.get() + entry.path()), token, gson.toJson(entry.body())), (name, value) -> true)
+                    .header("Idempotency-Key", entry.id())
+                    .build();
 
-            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
-                    .thenAccept(response -> {
-                        if (response.statusCode() != 200) {
-                            Arffornia.LOGGER.error("API call to player/join failed with status: {}", response.statusCode());
-                        }
-                    })
-                    .exceptionally(ex -> {
-                        Arffornia.LOGGER.error("Failed to send player join team update network request", ex);
-                        return null;
-                    });
+            return sendAuthenticated(request, token, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.WRITE);
         });
     }
 
+    /**
+     * Notifies the backend that a player has joined a team.
+     * The change is queued if the backend cannot be reached.
+     */
+    public void sendPlayerJoinedTeam(UUID playerUuid, UUID teamUuid, String teamName) {
+        JsonObject body = new JsonObject();
+        body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
+        body.addProperty("team_uuid", teamUuid.toString());
+        body.addProperty("team_name", teamName);
+
+        mutationQueue.submit("playerJoinedTeam", "/teams/player/join", body);
+    }
+
     /**
      * Notifies the backend that a player has left a team.
+     * The change is queued if the backend cannot be reached.
      */
     public void sendPlayerLeftTeam(UUID playerUuid) {
-        getServiceAuthToken().thenAccept(token -> {
-            if (token == null) {
-                Arffornia.LOGGER.warn("Cannot send player-left-team update, no auth token available.");
-                return;
-            }
-            JsonObject body = new JsonObject();
-            body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
-
-            HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/teams/player/leave"), token, gson.toJson(body));
+        JsonObject body = new JsonObject();
+        body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
 
-            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
-                    .thenAccept(response -> {
-                        if (response.statusCode() != 200) {
-                            Arffornia.LOGGER.error("API call to player/leave failed with status: {}", response.statusCode());
-                        }
-                    })
-                    .exceptionally(ex -> {
-                        Arffornia.LOGGER.error("Failed to send player left team update network request", ex);
-                        return null;
-                    });
-        });
+        mutationQueue.submit("playerLeftTeam", "/teams/player/leave", body);
     }
 
     /**
@@ -287,7 +338,7 @@ public class ArfforniaApiService {
 
             HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/progression/list"), token, gson.toJson(body));
 
-            return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+            return sendAuthenticated(request, token, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
                     .thenApply(response -> {
                         if (response.statusCode() == 200) {
                             JsonObject json = gson.fromJson(response.body(), JsonObject.class);
@@ -307,40 +358,79 @@ public class ArfforniaApiService {
 
     /**
      * Adds a milestone to a player's active progression.
+     * The change is queued if the backend cannot be reached.
+     *
+     * @return A CompletableFuture containing whether the change was delivered, queued or rejected.
      */
-    public CompletableFuture<Boolean> addMilestone(UUID playerUuid, int milestoneId) {
-        return getServiceAuthToken().thenCompose(token -> {
-            if (token == null) return CompletableFuture.completedFuture(false);
-
-            JsonObject body = new JsonObject();
-            body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
-            body.addProperty("milestone_id", milestoneId);
-
-            HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/progression/add"), token, gson.toJson(body));
+    public CompletableFuture<MutationQueue.Result> addMilestone(UUID playerUuid, int milestoneId) {
+        return addMilestone(playerUuid, milestoneId, MutationQueue.newMutationId());
+    }
 
-            return sendRequestAndCheckSuccess(request, "addMilestone", playerUuid);
+    /**
+     * Same as {@link #addMilestone(UUID, int)}, with the idempotency key of the change,
+     * so a queued change can be followed with {@link MutationQueue#getOutcome(String)}.
+     */
+    public CompletableFuture<MutationQueue.Result> addMilestone(UUID playerUuid, int milestoneId, String mutationId) {
+        JsonObject body = new JsonObject();
+        body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
+        body.addProperty("milestone_id", milestoneId);
+
+        return mutationQueue.submit(mutationId, "addMilestone", "/progression/add", body).thenApply(result -> {
+            if (result == MutationQueue.Result.DELIVERED) {
+                updateCachedProgression(playerUuid, data -> {
+                    List<Integer> completed = data.completedMilestones() != null ? new ArrayList<>(data.completedMilestones()) : new ArrayList<>();
+                    if (!completed.contains(milestoneId)) {
+                        completed.add(milestoneId);
+                    }
+                    return new ArfforniaApiDtos.ProgressionData(data.id(), completed, data.currentMilestoneId());
+                });
+            }
+            return result;
         });
     }
 
     /**
      * Removes a milestone from a player's active progression.
+     * The change goes through the same queue as {@link #addMilestone(UUID, int)}, so it cannot overtake a queued addition.
+     *
+     * @return A CompletableFuture containing whether the change was delivered, queued or rejected.
      */
-    public CompletableFuture<Boolean> removeMilestone(UUID playerUuid, int milestoneId) {
-        return getServiceAuthToken().thenCompose(token -> {
-            if (token == null) return CompletableFuture.completedFuture(false);
-
-            JsonObject body = new JsonObject();
-            body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
-            body.addProperty("milestone_id", milestoneId);
+    public CompletableFuture<MutationQueue.Result> removeMilestone(UUID playerUuid, int milestoneId) {
+        JsonObject body = new JsonObject();
+        body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
+        body.addProperty("milestone_id", milestoneId);
+
+        return mutationQueue.submit("removeMilestone", "/progression/remove", body).thenApply(result -> {
+            if (result == MutationQueue.Result.DELIVERED) {
+                updateCachedProgression(playerUuid, data -> {
+                    List<Integer> completed = data.completedMilestones() != null ? new ArrayList<>(data.completedMilestones()) : new ArrayList<>();
+                    completed.remove(Integer.valueOf(milestoneId));
+                    return new ArfforniaApiDtos.ProgressionData(data.id(), completed, data.currentMilestoneId());
+                });
+            }
+            return result;
+        });
+    }
 
-            HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/progression/remove"), token, gson.toJson(body));
+    /**
+     * Applies a successful progression change to the cached progression data of a player.
+     * If the player's active progression is not known yet, the whole cache is invalidated instead.
+     *
+     * @param playerUuid The UUID of the player whose progression changed.
+     * @param updater    Produces the updated progression data from the cached one.
+     */
+    private void updateCachedProgression(UUID playerUuid, UnaryOperator<ArfforniaApiDtos.ProgressionData> updater) {
+        Long progressionId = playerProgressionIds.get(playerUuid.toString().replace("-", ""));
+        if (progressionId == null) {
+            progressionCache.invalidateAll();
+            return;
+        }
 
-            return sendRequestAndCheckSuccess(request, "removeMilestone", playerUuid);
-        });
+        progressionCache.update(progressionId, updater);
     }
 
-    private CompletableFuture<Boolean> sendRequestAndCheckSuccess(HttpRequest request, String actionName, UUID playerUuid) {
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+    private CompletableFuture<Boolean> sendRequestAndCheckSuccess(HttpRequest request, String token, String actionName, UUID playerUuid) {
+        return sendAuthenticated(request, token, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.WRITE)
                 .thenApply(response -> {
                     if (response.statusCode() >= 200 && response.statusCode() <= 299) {
                         return true;
@@ -380,35 +470,35 @@ public class ArfforniaApiService {
 
             HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/player/ensure-exists"), token, gson.toJson(body));
 
-            return sendRequestAndCheckSuccess(request, "ensurePlayerExists", playerUuid);
+            return sendRequestAndCheckSuccess(request, token, "ensurePlayerExists", playerUuid);
         });
     }
 
     /**
      * Sets the player's targeted milestone via the API.
+     * The change is queued if the backend cannot be reached.
      *
      * @param playerUuid  The UUID of the player making the request.
      * @param milestoneId The ID of the milestone to target.
-     * @return A CompletableFuture that resolves to true on success.
+     * @return A CompletableFuture containing whether the change was delivered, queued or rejected.
      */
-    public CompletableFuture<Boolean> setTargetMilestone(UUID playerUuid, @Nullable Integer milestoneId) {
-        return getServiceAuthToken().thenCompose(token -> {
-            if (token == null) return CompletableFuture.completedFuture(false);
-
-            JsonObject body = new JsonObject();
-            body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
-            body.add("milestone_id", gson.toJsonTree(milestoneId));
-
-            HttpRequest request = this.buildRequest(URI.create(API_BASE_URL.get() + "/progression/set-target"), token, gson.toJson(body));
+    public CompletableFuture<MutationQueue.Result> setTargetMilestone(UUID playerUuid, @Nullable Integer milestoneId) {
+        JsonObject body = new JsonObject();
+        body.addProperty("player_uuid", playerUuid.toString().replace("-", ""));
+        body.add("milestone_id", gson.toJsonTree(milestoneId));
 
-            return sendRequestAndCheckSuccess(request, "setTargetMilestone", playerUuid);
+        return mutationQueue.submit("setTargetMilestone", "/progression/set-target", body).thenApply(result -> {
+            if (result == MutationQueue.Result.DELIVERED) {
+                updateCachedProgression(playerUuid, data -> new ArfforniaApiDtos.ProgressionData(data.id(), data.completedMilestones(), milestoneId));
+            }
+            return result;
         });
     }
 
     /**
      * Fetches all custom recipes from the API.
      *
-     * @return A CompletableFuture containing the list of all custom recipes.
+     * @return A CompletableFuture containing the list of all custom recipes, or null if the request failed.
      */
     public CompletableFuture<List<ArfforniaApiDtos.CustomRecipe>> fetchAllCustomRecipes() {
         HttpRequest request = HttpRequest.newBuilder()
@@ -416,18 +506,19 @@ public class ArfforniaApiService {
                 .header("Accept", "application/json")
                 .build();
 
-        return client.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+        return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ)
                 .thenApply(response -> {
                     if (response.statusCode() != 200) {
                         Arffornia.LOGGER.error("Failed to fetch all custom recipes. Status: {}", response.statusCode());
-                        return Collections.<ArfforniaApiDtos.CustomRecipe>emptyList();
+                        return null;
                     }
                     Type listType = new TypeToken<ArrayList<ArfforniaApiDtos.CustomRecipe>>() {}.getType();
-                    return gson.fromJson(response.body(), listType);
+                    List<ArfforniaApiDtos.CustomRecipe> recipes = gson.fromJson(response.body(), listType);
+                    return recipes;
                 })
                 .exceptionally(ex -> {
                     Arffornia.LOGGER.error("Failed to fetch all custom recipes from API: {}", ex.getMessage());
-                    return Collections.emptyList();
+                    return null;
                 });
     }
 
@@ -463,7 +554,7 @@ public class ArfforniaApiService {
                     gson.toJson(body)
             );
 
-            return sendRequestAndCheckSuccess(request, "addUnlockToMilestone", null);
+            return sendRequestAndCheckSuccess(request, token, "addUnlockToMilestone", null);
         });
     }
 
@@ -484,7 +575,7 @@ public class ArfforniaApiService {
                         .GET()
                         .build();
 
-                HttpResponse<String> response = client.send(getRequest, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = sendAuthenticated(getRequest, token, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.READ).join();
 
                 if (response.statusCode() != 200) {
                     Arffornia.LOGGER.error("Recipe Sync failed: Could not get item list from API. Status: {}", response.statusCode());
@@ -498,58 +589,15 @@ public class ArfforniaApiService {
                     Arffornia.LOGGER.info("Recipe Sync: No items require a recipe sync from the API.");
                     return;
                 }
-                Arffornia.LOGGER.info("Recipe Sync: Found {} items to sync. Preparing batch payload...", itemsToMigrate.size());
-
-                List<Map<String, Object>> batchPayload = new ArrayList<>();
-                RegistryAccess registryAccess = server.registryAccess();
-
-                // 2. Find the vanilla recipe for each item
-                for (String itemId : itemsToMigrate) {
-                    Item item = BuiltInRegistries.ITEM.get(ResourceLocation.parse(itemId));
-                    if (item == Items.AIR) {
-                        Arffornia.LOGGER.warn("Recipe Sync: Skipping unknown item_id '{}'", itemId);
-                        continue;
-                    }
-
-                    Optional<RecipeHolder<?>> recipeHolderOpt = AddUnlockCommand.findBestCraftingRecipeFor(allRecipes, new ItemStack(item), server.overworld());
-
-                    if (recipeHolderOpt.isEmpty()) {
-                        Arffornia.LOGGER.warn("Recipe Sync: No vanilla crafting recipe found for '{}'. It might be from a different recipe type (smelting, etc.) or added by a mod in a non-standard way.", itemId);
-                        continue;
-                    }
-
-                    Map<String, Object> recipePayload = AddUnlockCommand.convertRecipeToPayload(recipeHolderOpt.get().value(), registryAccess);
-                    if (recipePayload != null) {
-                        recipePayload.put("item_id", itemId); // Add the item_id for the backend to identify the unlock
-                        batchPayload.add(recipePayload);
-                    } else {
-                        Arffornia.LOGGER.warn("Recipe Sync: Unsupported recipe type for '{}'", itemId);
-                    }
-                }
-
-                if (batchPayload.isEmpty()) {
-                    Arffornia.LOGGER.info("Recipe Sync complete. No valid vanilla recipes found for the requested items.");
-                    return;
-                }
-
-                // 3. Send the batch of found recipes to the API
-                Arffornia.LOGGER.info("Recipe Sync: Sending batch of {} recipes to the API...", batchPayload.size());
-                JsonObject finalPayload = new JsonObject();
-                finalPayload.add("recipes", gson.toJsonTree(batchPayload));
-
-                HttpRequest batchRequest = this.buildRequest(
-                        URI.create(API_BASE_URL.get() + "/migration/submit-batch-recipes"),
-                        token,
-                        gson.toJson(finalPayload)
-                );
+                Arffornia.LOGGER.info("Recipe Sync: Found {} items to sync. Converting and uploading recipes...", itemsToMigrate.size());
 
-                HttpResponse<String> batchResponse = client.send(batchRequest, HttpResponse.BodyHandlers.ofString());
+                migrationPipeline.run(server, allRecipes, itemsToMigrate);
 
-                if (batchResponse.statusCode() >= 200 && batchResponse.statusCode() < 300) {
-                    Arffornia.LOGGER.info("Recipe Sync: Batch request successful!");
+                RecipeMigrationPipeline.Status status = migrationPipeline.getStatus();
+                if (status.state() == RecipeMigrationPipeline.State.COMPLETED) {
                     Arffornia.LOGGER.warn("Recipe sync on startup was successful. It is recommended to set 'migrateOnStartup' to 'false' in the config to prevent unnecessary checks on every launch.");
                 } else {
-                    Arffornia.LOGGER.error("Recipe Sync: Batch request failed. Status: {}, Body: {}", batchResponse.statusCode(), batchResponse.body());
+                    Arffornia.LOGGER.error("Recipe Sync: {} chunk(s) could not be uploaded. Check the logs above for details.", status.chunksFailed());
                 }
 
             } catch (Exception e) {
@@ -584,7 +632,7 @@ public class ArfforniaApiService {
                     gson.toJson(body)
             );
 
-            return sendRequestAndCheckSuccess(request, "setMilestoneRequirements", null);
+            return sendRequestAndCheckSuccess(request, token, "setMilestoneRequirements", null);
         });
     }
 
@@ -615,7 +663,7 @@ public class ArfforniaApiService {
                     gson.toJson(body)
             );
 
-            return sendRequestAndCheckSuccess(request, "moveMilestoneItem", null);
+            return sendRequestAndCheckSuccess(request, token, "moveMilestoneItem", null);
         });
     }
 
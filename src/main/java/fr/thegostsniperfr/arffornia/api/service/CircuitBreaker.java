@@ -0,0 +1,130 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+
+import java.util.concurrent.TimeUnit;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
+
+/**
+ * Stops calling the API for a while once too many of the recent calls failed.
+ * <p>
+ * The outcomes of the last {@link #WINDOW_SIZE} calls are kept. When the failure rate among them
+ * reaches the configured threshold, the breaker opens and calls fail immediately. After the
+ * configured delay, a single call is let through: if it succeeds the breaker closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+    private static final int WINDOW_SIZE = 20;
+    private static final int MIN_CALLS = 10;
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * @param state         The current state.
+     * @param failureRate   The failure rate over the recorded calls, between 0 and 1.
+     * @param recordedCalls The number of calls the failure rate is computed from.
+     * @param retryInMillis When open, how long before a call is let through again; 0 otherwise.
+     */
+    public record Status(State state, double failureRate, int recordedCalls, long retryInMillis) {
+    }
+
+    private final boolean[] failures = new boolean[WINDOW_SIZE];
+    private int next = 0;
+    private int recorded = 0;
+    private int failed = 0;
+
+    private State state = State.CLOSED;
+    private long openedAt = 0;
+    private boolean probeInFlight = false;
+
+    /**
+     * @return true if a call may be made. Every permitted call must be followed by
+     * {@link #onSuccess()} or {@link #onFailure()}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openDurationNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            Arffornia.LOGGER.info("API is reachable again, circuit breaker closed.");
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+
+        record(true);
+        if (state == State.CLOSED && recorded >= MIN_CALLS && failed * 100 >= CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD.get() * recorded) {
+            open();
+        }
+    }
+
+    public synchronized Status getStatus() {
+        long retryIn = 0;
+        if (state == State.OPEN) {
+            retryIn = Math.max(0, TimeUnit.NANOSECONDS.toMillis(openDurationNanos() - (System.nanoTime() - openedAt)));
+        }
+        return new Status(state, recorded > 0 ? (double) failed / recorded : 0.0, recorded, retryIn);
+    }
+
+    private void record(boolean failure) {
+        if (recorded == WINDOW_SIZE) {
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            recorded++;
+        }
+
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % WINDOW_SIZE;
+    }
+
+    private void open() {
+        if (state != State.OPEN) {
+            Arffornia.LOGGER.warn("Too many failed API calls, circuit breaker opened for {} seconds. API calls will fail immediately meanwhile.",
+                    CIRCUIT_BREAKER_OPEN_SECONDS.get());
+        }
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        probeInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        probeInFlight = false;
+        next = 0;
+        recorded = 0;
+        failed = 0;
+    }
+
+    private static long openDurationNanos() {
+        return TimeUnit.SECONDS.toNanos(CIRCUIT_BREAKER_OPEN_SECONDS.get());
+    }
+}
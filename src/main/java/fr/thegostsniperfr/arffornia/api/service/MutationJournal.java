@@ -0,0 +1,203 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import fr.thegostsniperfr.arffornia.Arffornia;
+import net.neoforged.fml.loading.FMLPaths;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only journal of the mutations waiting to be sent to the API, so they survive restarts.
+ * <p>
+ * Format: one JSON object per line, either a mutation ({@code "op": "put"}) or the acknowledgement
+ * of a sent one ({@code "op": "ack"}). Replaying the lines in order gives the pending mutations.
+ * The file is compacted on load and whenever nothing is pending.
+ * <p>
+ * The outcome of each sent mutation is kept in a second file, so callers can still learn it after a restart.
+ * Outcomes older than the retention are dropped on load.
+ */
+class MutationJournal {
+    /**
+     * A mutation to send to the API.
+     *
+     * @param id        The idempotency key, sent with every attempt so the API can ignore duplicates.
+     * @param action    A short name used in logs and status.
+     * @param path      The API path, relative to the base URL.
+     * @param body      The JSON body.
+     * @param createdAt When the mutation was submitted, in epoch milliseconds.
+     */
+    record Entry(String id, String action, String path, JsonObject body, long createdAt) {
+    }
+
+    private final Gson gson;
+    private final Path path;
+    private final Path outcomesPath;
+
+    MutationJournal(Gson gson) {
+        this.gson = gson;
+        this.path = FMLPaths.CONFIGDIR.get().resolve(Arffornia.MODID).resolve("mutation_journal.jsonl");
+        this.outcomesPath = path.resolveSibling("mutation_outcomes.jsonl");
+    }
+
+    /**
+     * Reads the pending mutations, in submission order, and rewrites the journal with only those.
+     */
+    synchronized List<Entry> load() {
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+
+        Map<String, Entry> pending = new LinkedHashMap<>();
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject json = gson.fromJson(line, JsonObject.class);
+                    String id = json.get("id").getAsString();
+                    if ("ack".equals(json.get("op").getAsString())) {
+                        pending.remove(id);
+                    } else {
+                        pending.put(id, new Entry(id, json.get("action").getAsString(), json.get("path").getAsString(),
+                                json.getAsJsonObject("body"), json.get("created").getAsLong()));
+                    }
+                } catch (JsonParseException | IllegalStateException | NullPointerException | UnsupportedOperationException e) {
+                    // A crash while appending can leave the last line incomplete.
+                    Arffornia.LOGGER.warn("Skipping an unreadable line in {}: {}", path, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to read the mutation journal {}: {}", path, e.getMessage());
+            return new ArrayList<>();
+        }
+
+        List<Entry> entries = new ArrayList<>(pending.values());
+        rewrite(entries);
+        if (!entries.isEmpty()) {
+            Arffornia.LOGGER.info("Loaded {} pending API mutation(s) from {}.", entries.size(), path);
+        }
+        return entries;
+    }
+
+    /**
+     * Reads the recorded outcomes and rewrites the file with only those still retained.
+     *
+     * @param retentionMillis How long an outcome is kept after it was recorded.
+     * @return The outcomes by idempotency key.
+     */
+    synchronized Map<String, MutationQueue.Result> loadOutcomes(long retentionMillis) {
+        Map<String, MutationQueue.Result> outcomes = new LinkedHashMap<>();
+        if (!Files.exists(outcomesPath)) {
+            return outcomes;
+        }
+
+        long oldest = System.currentTimeMillis() - retentionMillis;
+        List<String> kept = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(outcomesPath, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    JsonObject json = gson.fromJson(line, JsonObject.class);
+                    if (json.get("at").getAsLong() >= oldest) {
+                        outcomes.put(json.get("id").getAsString(), MutationQueue.Result.valueOf(json.get("result").getAsString()));
+                        kept.add(line);
+                    }
+                } catch (JsonParseException | IllegalArgumentException | IllegalStateException | NullPointerException | UnsupportedOperationException e) {
+                    Arffornia.LOGGER.warn("Skipping an unreadable line in {}: {}", outcomesPath, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to read the mutation outcomes {}: {}", outcomesPath, e.getMessage());
+            return outcomes;
+        }
+
+        replace(outcomesPath, kept);
+        return outcomes;
+    }
+
+    synchronized void append(Entry entry) {
+        appendLine(path, toJson(entry));
+    }
+
+    synchronized void acknowledge(String id) {
+        JsonObject json = new JsonObject();
+        json.addProperty("op", "ack");
+        json.addProperty("id", id);
+        appendLine(path, json);
+    }
+
+    /**
+     * Records the final result of a sent mutation. Called before it is acknowledged, so a crash in between only resends it.
+     */
+    synchronized void recordOutcome(String id, MutationQueue.Result result) {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("result", result.name());
+        json.addProperty("at", System.currentTimeMillis());
+        appendLine(outcomesPath, json);
+    }
+
+    /**
+     * Empties the journal. Only called once every mutation has been acknowledged.
+     */
+    synchronized void clear() {
+        rewrite(List.of());
+    }
+
+    private JsonObject toJson(Entry entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("op", "put");
+        json.addProperty("id", entry.id());
+        json.addProperty("action", entry.action());
+        json.addProperty("path", entry.path());
+        json.add("body", entry.body());
+        json.addProperty("created", entry.createdAt());
+        return json;
+    }
+
+    private void appendLine(Path file, JsonObject json) {
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE, StandardOpenOption.SYNC)) {
+                writer.write(gson.toJson(json));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to write to the mutation journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the journal atomically, so a crash never loses the pending mutations.
+     */
+    private void rewrite(List<Entry> entries) {
+        replace(path, entries.stream().map(entry -> gson.toJson(toJson(entry))).toList());
+    }
+
+    private void replace(Path file, List<String> lines) {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to compact the mutation journal {}: {}", file, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import com.google.gson.JsonObject;
+import fr.thegostsniperfr.arffornia.Arffornia;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.http.HttpResponse;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
+
+/**
+ * Sends mutations to the API in submission order, keeping them in a {@link MutationJournal} until the API accepts them.
+ * <p>
+ * Each mutation is journaled, on a dedicated writer thread, before being sent. A single background thread sends the oldest one;
+ * if the API cannot be reached, the queue waits with exponential backoff and tries again, so later
+ * mutations never overtake an earlier one. Each mutation carries an idempotency key, so a retry
+ * of a request the API did receive is not applied twice.
+ */
+public class MutationQueue {
+    private static final long RETRY_BASE_DELAY_MILLIS = 1000;
+    private static final long JOURNAL_SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    /**
+     * What happened to a submitted mutation.
+     */
+    public enum Result {
+        /** The API accepted the mutation. */
+        DELIVERED,
+        /** The API could not be reached; the mutation is journaled and will be sent later. */
+        QUEUED,
+        /** The API refused the mutation; it is dropped. */
+        REJECTED
+    }
+
+    /**
+     * A snapshot of the queue.
+     *
+     * @param depth          The number of mutations waiting to be sent.
+     * @param lagMillis      How long the oldest waiting mutation has been waiting.
+     * @param delivered      The number of mutations delivered since startup.
+     * @param rejected       The number of mutations rejected since startup.
+     * @param failedAttempts The number of consecutive failed attempts for the oldest mutation, authentication failures excluded.
+     * @param lastError      The reason of the last failed attempt, or null if the last attempt succeeded.
+     * @param authFailed     Whether the API refused the service credentials on the last attempt, even with a fresh token.
+     */
+    public record Status(int depth, long lagMillis, long delivered, long rejected, int failedAttempts, @Nullable String lastError,
+                         boolean authFailed) {
+    }
+
+    /**
+     * Notified, on the sender thread, of the final result of a mutation whose caller was told it was {@link Result#QUEUED}.
+     */
+    public interface LateOutcomeListener {
+        /**
+         * @param mutationId The idempotency key of the mutation.
+         * @param result     Either {@link Result#DELIVERED} or {@link Result#REJECTED}.
+         */
+        void onLateOutcome(String mutationId, Result result);
+    }
+
+    /**
+     * How long the outcome of a sent mutation is kept for {@link #getOutcome(String)},
+     * for callers that were not loaded when it came in, even across restarts.
+     */
+    private static final long OUTCOME_RETENTION_DAYS = 30;
+
+    private final MutationJournal journal;
+    private final Function<MutationJournal.Entry, CompletableFuture<HttpResponse<String>>> sender;
+    private final List<LateOutcomeListener> lateOutcomeListeners = new CopyOnWriteArrayList<>();
+    /**
+     * Outcomes of the mutations sent within the retention, by idempotency key. Mirrors the journal's outcome file.
+     */
+    private final Map<String, Result> outcomes = new ConcurrentHashMap<>();
+
+    private final Deque<MutationJournal.Entry> pending = new ArrayDeque<>();
+    /**
+     * Idempotency keys of the mutations waiting to be sent, including those still being journaled.
+     * Readable without the queue lock, so the server thread never waits behind a journal write.
+     */
+    private final Set<String> pendingIds = ConcurrentHashMap.newKeySet();
+    /**
+     * Callers still waiting for the first attempt of their mutation, by idempotency key.
+     */
+    private final Map<String, CompletableFuture<Result>> waiting = new HashMap<>();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private volatile boolean loaded = false;
+    /**
+     * The number of submitted mutations not yet written to the journal. The journal is only cleared when there are none.
+     */
+    private int appending = 0;
+    private int failedAttempts = 0;
+    /**
+     * Set while the API refuses the service credentials. Unlike a server error, this only goes away once the credentials are fixed.
+     */
+    private boolean authFailed = false;
+    @Nullable
+    private String lastError = null;
+    @Nullable
+    private ScheduledExecutorService executor = null;
+    @Nullable
+    private ExecutorService journalWriter = null;
+    @Nullable
+    private ScheduledFuture<?> scheduledDrain = null;
+
+    /**
+     * @param journal The journal keeping the pending mutations.
+     * @param sender  Sends a mutation, completing with null if it could not be authenticated.
+     */
+    MutationQueue(MutationJournal journal, Function<MutationJournal.Entry, CompletableFuture<HttpResponse<String>>> sender) {
+        this.journal = journal;
+        this.sender = sender;
+    }
+
+    /**
+     * @return A new idempotency key, for callers that need to know it before submitting their mutation.
+     */
+    public static String newMutationId() {
+        return UUID.randomUUID().toString();
+    }
+
+    public void addLateOutcomeListener(LateOutcomeListener listener) {
+        lateOutcomeListeners.add(listener);
+    }
+
+    /**
+     * Loads the journal and starts sending. Should be called on server start.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+
+        ensureLoaded();
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Arffornia-Mutation-Sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journalWriter = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "Arffornia-Mutation-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduleDrain(0);
+    }
+
+    /**
+     * Stops sending. Pending mutations stay in the journal for the next start. Should be called on server stop.
+     * Mutations already submitted are written to the journal before this returns.
+     */
+    public void stop() {
+        ExecutorService writer;
+        synchronized (this) {
+            if (executor == null) {
+                return;
+            }
+
+            executor.shutdownNow();
+            executor = null;
+            scheduledDrain = null;
+            writer = journalWriter;
+            journalWriter = null;
+        }
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(JOURNAL_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                Arffornia.LOGGER.error("Some API mutations could not be written to the journal before shutdown and may be lost.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        synchronized (this) {
+            completeWaiting(Result.QUEUED);
+            if (!pending.isEmpty()) {
+                Arffornia.LOGGER.warn("{} API mutation(s) could not be sent before shutdown. They will be sent on next start.", pending.size());
+            }
+        }
+    }
+
+    /**
+     * Journals a mutation and sends it once every earlier mutation has been sent.
+     *
+     * @param action A short name used in logs and status.
+     * @param path   The API path, relative to the base URL.
+     * @param body   The JSON body.
+     * @return A CompletableFuture completed, once the mutation is journaled, with the result of the first attempt,
+     * or with {@link Result#QUEUED} if the API is already known to be unreachable.
+     */
+    public CompletableFuture<Result> submit(String action, String path, JsonObject body) {
+        return submit(newMutationId(), action, path, body);
+    }
+
+    /**
+     * Same as {@link #submit(String, String, JsonObject)}, with an idempotency key from {@link #newMutationId()},
+     * so the caller can later follow a {@link Result#QUEUED} mutation with {@link #getOutcome(String)}.
+     */
+    public CompletableFuture<Result> submit(String mutationId, String action, String path, JsonObject body) {
+        MutationJournal.Entry entry = new MutationJournal.Entry(mutationId, action, path, body.deepCopy(), System.currentTimeMillis());
+        CompletableFuture<Result> result = new CompletableFuture<>();
+
+        synchronized (this) {
+            appending++;
+            pendingIds.add(entry.id());
+            if (journalWriter != null) {
+                // The journal write is synced to disk, so it never runs on the caller's thread, usually the server thread.
+                journalWriter.execute(() -> accept(entry, result));
+                return result;
+            }
+        }
+
+        // Not started or already stopped: there is no writer thread to hand the write to.
+        accept(entry, result);
+        return result;
+    }
+
+    /**
+     * Journals a submitted mutation, then queues it for sending. Runs on the journal writer thread once started.
+     */
+    private void accept(MutationJournal.Entry entry, CompletableFuture<Result> result) {
+        ensureLoaded();
+        journal.append(entry);
+
+        boolean queued;
+        synchronized (this) {
+            appending--;
+            pending.addLast(entry);
+
+            queued = executor == null || failedAttempts > 0 || authFailed;
+            if (!queued) {
+                waiting.put(entry.id(), result);
+                scheduleDrain(0);
+            }
+        }
+        if (queued) {
+            result.complete(Result.QUEUED);
+        }
+    }
+
+    /**
+     * @param mutationId The idempotency key of a submitted mutation.
+     * @return {@link Result#QUEUED} while it waits to be sent, its result once sent,
+     * or null if it is unknown, e.g. resolved longer ago than the retention.
+     */
+    @Nullable
+    public Result getOutcome(String mutationId) {
+        ensureLoaded();
+        if (pendingIds.contains(mutationId)) {
+            return Result.QUEUED;
+        }
+        return outcomes.get(mutationId);
+    }
+
+    public synchronized Status getStatus() {
+        MutationJournal.Entry oldest = pending.peekFirst();
+        long lag = oldest != null ? Math.max(0, System.currentTimeMillis() - oldest.createdAt()) : 0;
+        return new Status(pending.size(), lag, delivered.get(), rejected.get(), failedAttempts, lastError, authFailed);
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        synchronized (this) {
+            if (!loaded) {
+                outcomes.putAll(journal.loadOutcomes(TimeUnit.DAYS.toMillis(OUTCOME_RETENTION_DAYS)));
+                List<MutationJournal.Entry> entries = journal.load();
+                pending.addAll(entries);
+                entries.forEach(entry -> pendingIds.add(entry.id()));
+                loaded = true;
+            }
+        }
+    }
+
+    private void scheduleDrain(long delayMillis) {
+        if (executor != null && scheduledDrain == null) {
+            scheduledDrain = executor.schedule(this::drain, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Sends the pending mutations one by one, oldest first, until none is left or one cannot be sent.
+     * Only ever runs on the sender thread.
+     */
+    private void drain() {
+        while (true) {
+            MutationJournal.Entry head;
+            synchronized (this) {
+                head = pending.peekFirst();
+                if (head == null) {
+                    scheduledDrain = null;
+                    return;
+                }
+            }
+
+            Result outcome;
+            String error = null;
+            boolean authFailure = false;
+            try {
+                HttpResponse<String> response = sender.apply(head).join();
+                if (response == null) {
+                    outcome = null;
+                    error = "no service auth token";
+                } else if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                    outcome = Result.DELIVERED;
+                } else if (response.statusCode() == 401) {
+                    // The request was already retried with a fresh token, so the credentials themselves are refused.
+                    outcome = null;
+                    authFailure = true;
+                    error = "service credentials rejected (status 401)";
+                } else if (isRetryable(response.statusCode())) {
+                    outcome = null;
+                    error = "status " + response.statusCode();
+                } else {
+                    outcome = Result.REJECTED;
+                    Arffornia.LOGGER.error("API rejected mutation {} ({}). Status: {}, Body: {}", head.action(), head.id(), response.statusCode(), response.body());
+                }
+            } catch (CompletionException e) {
+                outcome = null;
+                error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            }
+
+            if (outcome == null) {
+                retryLater(head, error, authFailure);
+                return;
+            }
+
+            journal.recordOutcome(head.id(), outcome);
+            outcomes.put(head.id(), outcome);
+            journal.acknowledge(head.id());
+
+            CompletableFuture<Result> caller;
+            synchronized (this) {
+                pending.pollFirst();
+                pendingIds.remove(head.id());
+                if (pending.isEmpty() && appending == 0) {
+                    clearJournal();
+                }
+                if (failedAttempts > 0) {
+                    Arffornia.LOGGER.info("API mutation {} was sent after {} failed attempt(s). {} mutation(s) left in the queue.", head.action(), failedAttempts, pending.size());
+                }
+                if (authFailed) {
+                    Arffornia.LOGGER.info("API accepted the service credentials again. {} mutation(s) left in the queue.", pending.size());
+                }
+                failedAttempts = 0;
+                authFailed = false;
+                lastError = null;
+                caller = waiting.remove(head.id());
+            }
+
+            (outcome == Result.DELIVERED ? delivered : rejected).incrementAndGet();
+            if (caller != null) {
+                caller.complete(outcome);
+            } else {
+                for (LateOutcomeListener listener : lateOutcomeListeners) {
+                    listener.onLateOutcome(head.id(), outcome);
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties the journal once every mutation has been sent. Called with the queue lock held.
+     * The journal is cleared on the writer thread, after the writes already handed to it.
+     */
+    private void clearJournal() {
+        if (journalWriter == null) {
+            journal.clear();
+            return;
+        }
+
+        journalWriter.execute(() -> {
+            synchronized (this) {
+                if (!pending.isEmpty()) {
+                    return;
+                }
+            }
+            // A mutation submitted meanwhile is written after this, by the same thread.
+            journal.clear();
+        });
+    }
+
+    /**
+     * @param authFailure Whether the attempt failed because the service credentials were refused.
+     *                    Such failures are retried at the maximum delay, since they do not go away on their own.
+     */
+    private synchronized void retryLater(MutationJournal.Entry head, String error, boolean authFailure) {
+        lastError = error;
+        completeWaiting(Result.QUEUED);
+
+        long maxDelay = TimeUnit.SECONDS.toMillis(MUTATION_RETRY_MAX_DELAY_SECONDS.get());
+        long delay;
+        if (authFailure) {
+            authFailed = true;
+            delay = maxDelay;
+            Arffornia.LOGGER.error("The API refused the service credentials while sending mutation {} ({}). Check the API client ID and secret. {} mutation(s) held, retrying in {} ms.",
+                    head.action(), head.id(), pending.size(), delay);
+        } else {
+            failedAttempts++;
+            delay = Math.min(maxDelay, RETRY_BASE_DELAY_MILLIS << Math.min(failedAttempts - 1, 16));
+            Arffornia.LOGGER.warn("Could not send API mutation {} ({}): {}. {} mutation(s) queued, retrying in {} ms.",
+                    head.action(), head.id(), error, pending.size(), delay);
+        }
+
+        scheduledDrain = null;
+        scheduleDrain(delay);
+    }
+
+    private void completeWaiting(Result result) {
+        List<CompletableFuture<Result>> callers = new ArrayList<>(waiting.values());
+        waiting.clear();
+        callers.forEach(caller -> caller.complete(result));
+    }
+
+    /**
+     * Server errors, timeouts and rate limiting are expected to go away;
+     * any other client error, authentication failures aside, means the mutation itself is invalid.
+     */
+    private static boolean isRetryable(int statusCode) {
+        return statusCode >= 500 || statusCode == 408 || statusCode == 429;
+    }
+}
@@ -0,0 +1,126 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.PROGRESSION_CACHE_MAX_SIZE;
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.PROGRESSION_CACHE_TTL_SECONDS;
+
+/**
+ * Bounded in-memory cache of progression data, keyed by progression ID.
+ * Entries expire after the configured TTL and the least recently used entry is evicted once the cache is full.
+ */
+public class ProgressionDataCache {
+    private final Map<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            return size() > PROGRESSION_CACHE_MAX_SIZE.get();
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    /**
+     * Incremented on every update or invalidation, so that a fetch started before a change
+     * does not store its now outdated result.
+     */
+    private long generation = 0;
+
+    /**
+     * Returns the cached progression data if present and not expired.
+     *
+     * @param progressionId The ID of the progression.
+     * @return The cached data, or null on a cache miss.
+     */
+    @Nullable
+    public synchronized ArfforniaApiDtos.ProgressionData get(long progressionId) {
+        Entry entry = entries.get(progressionId);
+        if (entry == null || isExpired(entry)) {
+            if (entry != null) {
+                entries.remove(progressionId);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        return entry.data();
+    }
+
+    /**
+     * @return The current generation, to be passed to {@link #put} once the fetch completes.
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Stores freshly fetched progression data. Does nothing if the cache is disabled (TTL of 0)
+     * or if the cache was modified since the fetch started.
+     *
+     * @param fetchGeneration The value of {@link #generation()} when the fetch started.
+     */
+    public synchronized void put(long progressionId, ArfforniaApiDtos.ProgressionData data, long fetchGeneration) {
+        if (PROGRESSION_CACHE_TTL_SECONDS.get() <= 0 || fetchGeneration != generation) {
+            return;
+        }
+        entries.put(progressionId, new Entry(data, System.currentTimeMillis()));
+    }
+
+    /**
+     * Replaces a cached entry with an updated copy, keeping its original timestamp.
+     * Does nothing if the progression is not cached.
+     */
+    public synchronized void update(long progressionId, UnaryOperator<ArfforniaApiDtos.ProgressionData> updater) {
+        generation++;
+        Entry entry = entries.get(progressionId);
+        if (entry != null) {
+            entries.put(progressionId, new Entry(updater.apply(entry.data()), entry.storedAt()));
+        }
+    }
+
+    public synchronized void invalidate(long progressionId) {
+        generation++;
+        entries.remove(progressionId);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The ratio of hits over all lookups, between 0 and 1.
+     */
+    public double getHitRate() {
+        long h = hits.get();
+        long total = h + misses.get();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    private boolean isExpired(Entry entry) {
+        long ttlMillis = TimeUnit.SECONDS.toMillis(PROGRESSION_CACHE_TTL_SECONDS.get());
+        return System.currentTimeMillis() - entry.storedAt() > ttlMillis;
+    }
+
+    private record Entry(ArfforniaApiDtos.ProgressionData data, long storedAt) {
+    }
+}
@@ -0,0 +1,317 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import fr.thegostsniperfr.arffornia.Arffornia;
+import fr.thegostsniperfr.arffornia.command.management.AddUnlockCommand;
+import fr.thegostsniperfr.arffornia.recipe.CraftingRecipeIndex;
+import fr.thegostsniperfr.arffornia.recipe.RecipeBanManager;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
+
+/**
+ * Migrates vanilla crafting recipes to the web backend in three stages:
+ * <ol>
+ *     <li>recipes are converted to API payloads on a pool of worker threads;</li>
+ *     <li>payloads are grouped into fixed-size chunks, each uploaded as soon as it is full,
+ *     with a bounded number of uploads in flight and retries with backoff per chunk;</li>
+ *     <li>progress is tracked and exposed through {@link #getStatus()}.</li>
+ * </ol>
+ * A failed chunk does not affect the others.
+ */
+public class RecipeMigrationPipeline {
+    private static final long RETRY_BASE_DELAY_MILLIS = 1000;
+
+    public enum State {
+        IDLE, RUNNING, COMPLETED, FAILED
+    }
+
+    private enum UploadOutcome {
+        SUCCESS, RETRYABLE, REJECTED
+    }
+
+    /**
+     * A snapshot of the progress of the current or last migration.
+     */
+    public record Status(State state, int itemsTotal, int itemsConverted, int itemsSkipped,
+                         int chunksUploaded, int chunksFailed, int recipesUploaded, int retries, long elapsedMillis) {
+        /**
+         * @return The number of recipes converted per second.
+         */
+        public double conversionRate() {
+            return elapsedMillis > 0 ? itemsConverted * 1000.0 / elapsedMillis : 0.0;
+        }
+
+        /**
+         * @return The number of recipes uploaded per second.
+         */
+        public double uploadRate() {
+            return elapsedMillis > 0 ? recipesUploaded * 1000.0 / elapsedMillis : 0.0;
+        }
+    }
+
+    private final ApiGateway gateway;
+    private final Gson gson;
+    private final ServiceTokenManager tokenManager;
+
+    private volatile State state = State.IDLE;
+    private volatile long startedAt = 0;
+    private volatile long finishedAt = 0;
+    private final AtomicInteger itemsTotal = new AtomicInteger();
+    private final AtomicInteger itemsConverted = new AtomicInteger();
+    private final AtomicInteger itemsSkipped = new AtomicInteger();
+    private final AtomicInteger chunksUploaded = new AtomicInteger();
+    private final AtomicInteger chunksFailed = new AtomicInteger();
+    private final AtomicInteger recipesUploaded = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+
+    RecipeMigrationPipeline(ApiGateway gateway, Gson gson, ServiceTokenManager tokenManager) {
+        this.gateway = gateway;
+        this.gson = gson;
+        this.tokenManager = tokenManager;
+    }
+
+    public Status getStatus() {
+        long end = state == State.RUNNING ? System.currentTimeMillis() : finishedAt;
+        long elapsed = startedAt > 0 ? end - startedAt : 0;
+        return new Status(state, itemsTotal.get(), itemsConverted.get(), itemsSkipped.get(),
+                chunksUploaded.get(), chunksFailed.get(), recipesUploaded.get(), retries.get(), elapsed);
+    }
+
+    /**
+     * Runs the migration for the given items and blocks until every chunk has been uploaded or has failed.
+     *
+     * @param server     The server, used to access the registries.
+     * @param allRecipes The recipes to migrate from.
+     * @param itemIds    The registry names of the items to migrate.
+     */
+    public void run(MinecraftServer server, Collection<RecipeHolder<?>> allRecipes, List<String> itemIds) {
+        reset(itemIds.size());
+
+        RegistryAccess registryAccess = server.registryAccess();
+        // Resolved once for the whole run: a data pack reload meanwhile replaces the shared index,
+        // and looking it up again from the workers would rebuild it for every item.
+        CraftingRecipeIndex recipeIndex = RecipeBanManager.getCraftingRecipeIndex(allRecipes, registryAccess);
+
+        ChunkUploader uploader = new ChunkUploader(MIGRATION_BATCH_SIZE.get(), MIGRATION_MAX_CONCURRENT_UPLOADS.get());
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(MIGRATION_WORKER_THREADS.get(),
+                r -> new Thread(r, "Arffornia-Migration-Worker-" + threadCount.incrementAndGet()));
+
+        try {
+            List<CompletableFuture<Void>> conversions = new ArrayList<>(itemIds.size());
+            for (String itemId : itemIds) {
+                conversions.add(CompletableFuture.runAsync(() -> {
+                    Map<String, Object> payload;
+                    try {
+                        payload = convert(itemId, recipeIndex, registryAccess);
+                    } catch (RuntimeException e) {
+                        Arffornia.LOGGER.error("Recipe Sync: Failed to convert the recipe of '{}'", itemId, e);
+                        payload = null;
+                    }
+                    if (payload == null) {
+                        itemsSkipped.incrementAndGet();
+                        return;
+                    }
+                    itemsConverted.incrementAndGet();
+                    uploader.add(payload);
+                }, workers));
+            }
+
+            CompletableFuture.allOf(conversions.toArray(new CompletableFuture[0])).join();
+            uploader.flush();
+            uploader.awaitUploads();
+
+            state = chunksFailed.get() == 0 ? State.COMPLETED : State.FAILED;
+        } catch (RuntimeException e) {
+            state = State.FAILED;
+            throw e;
+        } finally {
+            finishedAt = System.currentTimeMillis();
+            workers.shutdown();
+        }
+
+        Status status = getStatus();
+        Arffornia.LOGGER.info("Recipe Sync finished in {} ms: {} recipes converted, {} items skipped, {} recipes uploaded in {} chunks, {} chunks failed, {} retries.",
+                status.elapsedMillis(), status.itemsConverted(), status.itemsSkipped(), status.recipesUploaded(),
+                status.chunksUploaded(), status.chunksFailed(), status.retries());
+    }
+
+    private void reset(int total) {
+        itemsTotal.set(total);
+        itemsConverted.set(0);
+        itemsSkipped.set(0);
+        chunksUploaded.set(0);
+        chunksFailed.set(0);
+        recipesUploaded.set(0);
+        retries.set(0);
+        startedAt = System.currentTimeMillis();
+        finishedAt = 0;
+        state = State.RUNNING;
+    }
+
+    @Nullable
+    private Map<String, Object> convert(String itemId, CraftingRecipeIndex recipeIndex, RegistryAccess registryAccess) {
+        ResourceLocation id = ResourceLocation.tryParse(itemId);
+        Item item = id != null ? BuiltInRegistries.ITEM.get(id) : Items.AIR;
+        if (item == Items.AIR) {
+            Arffornia.LOGGER.warn("Recipe Sync: Skipping unknown item_id '{}'", itemId);
+            return null;
+        }
+
+        Optional<RecipeHolder<?>> recipeHolderOpt = recipeIndex.findBest(new ItemStack(item));
+        if (recipeHolderOpt.isEmpty()) {
+            Arffornia.LOGGER.warn("Recipe Sync: No vanilla crafting recipe found for '{}'. It might be from a different recipe type (smelting, etc.) or added by a mod in a non-standard way.", itemId);
+            return null;
+        }
+
+        Map<String, Object> recipePayload = AddUnlockCommand.convertRecipeToPayload(recipeHolderOpt.get().value(), registryAccess);
+        if (recipePayload == null) {
+            Arffornia.LOGGER.warn("Recipe Sync: Unsupported recipe type for '{}'", itemId);
+            return null;
+        }
+
+        recipePayload.put("item_id", itemId); // Add the item_id for the backend to identify the unlock
+        return recipePayload;
+    }
+
+    /**
+     * Groups converted payloads into chunks and uploads each full chunk.
+     * Uploads are limited by a semaphore, which also slows down conversion when the API cannot keep up.
+     */
+    private class ChunkUploader {
+        private final int batchSize;
+        private final Semaphore permits;
+        private final List<CompletableFuture<Boolean>> uploads = new ArrayList<>();
+        private List<Map<String, Object>> current;
+
+        private ChunkUploader(int batchSize, int maxConcurrentUploads) {
+            this.batchSize = batchSize;
+            this.permits = new Semaphore(maxConcurrentUploads);
+            this.current = new ArrayList<>(batchSize);
+        }
+
+        void add(Map<String, Object> payload) {
+            List<Map<String, Object>> full = null;
+            synchronized (this) {
+                current.add(payload);
+                if (current.size() >= batchSize) {
+                    full = current;
+                    current = new ArrayList<>(batchSize);
+                }
+            }
+            if (full != null) {
+                submit(full);
+            }
+        }
+
+        void flush() {
+            List<Map<String, Object>> remaining;
+            synchronized (this) {
+                remaining = current;
+                current = new ArrayList<>(batchSize);
+            }
+            if (!remaining.isEmpty()) {
+                submit(remaining);
+            }
+        }
+
+        void awaitUploads() {
+            CompletableFuture<?>[] all;
+            synchronized (this) {
+                all = uploads.toArray(new CompletableFuture[0]);
+            }
+            CompletableFuture.allOf(all).join();
+        }
+
+        private void submit(List<Map<String, Object>> chunk) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<Boolean> upload = upload(chunk, 0).whenComplete((success, ex) -> permits.release());
+            synchronized (this) {
+                uploads.add(upload);
+            }
+        }
+
+        private CompletableFuture<Boolean> upload(List<Map<String, Object>> chunk, int attempt) {
+            // The token is fetched for every attempt, as a long migration can outlive it.
+            return tokenManager.getToken()
+                    .thenCompose(token -> token == null
+                            ? CompletableFuture.completedFuture(UploadOutcome.RETRYABLE)
+                            : send(chunk, token, attempt))
+                    .thenCompose(outcome -> {
+                        if (outcome == UploadOutcome.SUCCESS) {
+                            chunksUploaded.incrementAndGet();
+                            recipesUploaded.addAndGet(chunk.size());
+                            return CompletableFuture.completedFuture(true);
+                        }
+                        if (outcome == UploadOutcome.REJECTED || attempt >= MIGRATION_MAX_RETRIES.get()) {
+                            chunksFailed.incrementAndGet();
+                            Arffornia.LOGGER.error("Recipe Sync: Giving up on a chunk of {} recipes after {} attempt(s).", chunk.size(), attempt + 1);
+                            return CompletableFuture.completedFuture(false);
+                        }
+
+                        retries.incrementAndGet();
+                        long delay = RETRY_BASE_DELAY_MILLIS << attempt;
+                        return CompletableFuture.supplyAsync(() -> null, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                                .thenCompose(ignored -> upload(chunk, attempt + 1));
+                    });
+        }
+
+        private CompletableFuture<UploadOutcome> send(List<Map<String, Object>> chunk, String token, int attempt) {
+            JsonObject body = new JsonObject();
+            body.add("recipes", gson.toJsonTree(chunk));
+
+            HttpRequest request = HttpRequest.newBuilder()
+                    .uri(URI.create(API_BASE_URL.get() + "/migration/submit-batch-recipes"))
+                    .header("Authorization", "Bearer " + token)
+                    .header("Accept", "application/json")
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
+                    .build();
+
+            return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.WRITE)
+                    .handle((response, ex) -> {
+                        if (ex != null) {
+                            Arffornia.LOGGER.warn("Recipe Sync: Chunk of {} recipes could not be sent (attempt {}): {}", chunk.size(), attempt + 1, ex.getMessage());
+                            return UploadOutcome.RETRYABLE;
+                        }
+                        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+                            return UploadOutcome.SUCCESS;
+                        }
+                        Arffornia.LOGGER.warn("Recipe Sync: Chunk of {} recipes was rejected (attempt {}). Status: {}, Body: {}", chunk.size(), attempt + 1, response.statusCode(), response.body());
+                        if (response.statusCode() == 401) {
+                            // The next attempt gets a new token.
+                            tokenManager.invalidate(token);
+                            return UploadOutcome.RETRYABLE;
+                        }
+                        // Client errors other than rate limiting will not succeed on retry.
+                        boolean retryable = response.statusCode() >= 500 || response.statusCode() == 429;
+                        return retryable ? UploadOutcome.RETRYABLE : UploadOutcome.REJECTED;
+                    });
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import fr.thegostsniperfr.arffornia.Arffornia;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static fr.thegostsniperfr.arffornia.config.ApiConfig.*;
+
+/**
+ * Holds the service account token and keeps it fresh.
+ * <p>
+ * The token is refreshed in the background shortly before it expires, so callers normally get it without waiting.
+ * Concurrent refreshes share a single request to {@code /auth/token/svc}.
+ * A token rejected by the API can be {@linkplain #invalidate(String) invalidated} to force a new one.
+ */
+public class ServiceTokenManager {
+    private record Token(String value, long refreshAtNanos, long expiresAtNanos) {
+    }
+
+    private final ApiGateway gateway;
+    private final Gson gson;
+    private final AtomicReference<Token> current = new AtomicReference<>(null);
+    private final SingleFlight<Boolean, String> refreshFlight = new SingleFlight<>();
+
+    ServiceTokenManager(ApiGateway gateway, Gson gson) {
+        this.gateway = gateway;
+        this.gson = gson;
+    }
+
+    /**
+     * Returns the current token. If it is about to expire, it is still returned while a new one is fetched
+     * in the background; if it has expired or there is none, the caller waits for a new one.
+     *
+     * @return A CompletableFuture containing the token, or null if none could be obtained.
+     */
+    public CompletableFuture<String> getToken() {
+        Token token = current.get();
+        if (token == null) {
+            return refresh();
+        }
+
+        long now = System.nanoTime();
+        if (now - token.expiresAtNanos() >= 0) {
+            return refresh();
+        }
+        if (now - token.refreshAtNanos() >= 0) {
+            refresh();
+        }
+        return CompletableFuture.completedFuture(token.value());
+    }
+
+    /**
+     * Drops the given token if it is still the current one, so the next call to {@link #getToken()} fetches a new one.
+     * A token already replaced by another caller is left alone.
+     *
+     * @param token The token rejected by the API.
+     */
+    public void invalidate(String token) {
+        Token existing = current.get();
+        if (existing != null && existing.value().equals(token) && current.compareAndSet(existing, null)) {
+            Arffornia.LOGGER.info("Service auth token was rejected by the API, a new one will be requested.");
+        }
+    }
+
+    /**
+     * @return The number of seconds before the current token expires, or -1 if there is none.
+     */
+    public long getSecondsUntilExpiry() {
+        Token token = current.get();
+        if (token == null) {
+            return -1;
+        }
+        return Math.max(0, TimeUnit.NANOSECONDS.toSeconds(token.expiresAtNanos() - System.nanoTime()));
+    }
+
+    private CompletableFuture<String> refresh() {
+        return refreshFlight.execute(Boolean.TRUE, this::requestToken);
+    }
+
+    private CompletableFuture<String> requestToken() {
+        JsonObject body = new JsonObject();
+        body.addProperty("client_id", API_CLIENT_ID.get());
+        body.addProperty("client_secret", API_CLIENT_SECRET.get());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(API_BASE_URL.get() + "/auth/token/svc"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(body)))
+                .build();
+
+        return gateway.send(request, HttpResponse.BodyHandlers.ofString(), ApiGateway.Kind.AUTH)
+                .thenApply(response -> {
+                    if (response.statusCode() != 200) {
+                        Arffornia.LOGGER.error("Failed to authenticate service account. Status: {}, Body: {}", response.statusCode(), response.body());
+                        return null;
+                    }
+
+                    JsonObject jsonResponse = gson.fromJson(response.body(), JsonObject.class);
+                    String value = jsonResponse.get("token").getAsString();
+                    store(value, readLifetimeSeconds(jsonResponse));
+                    return value;
+                })
+                .exceptionally(ex -> {
+                    Arffornia.LOGGER.error("Could not connect to API to get service auth token: {}", ex.getMessage());
+                    return null;
+                });
+    }
+
+    /**
+     * Stores a new token and schedules its refresh before it expires.
+     */
+    private void store(String value, long lifetimeSeconds) {
+        long margin = Math.min(SERVICE_TOKEN_REFRESH_MARGIN_SECONDS.get(), lifetimeSeconds / 2);
+        long refreshDelay = lifetimeSeconds - margin;
+        long now = System.nanoTime();
+
+        Token token = new Token(value,
+                now + TimeUnit.SECONDS.toNanos(refreshDelay),
+                now + TimeUnit.SECONDS.toNanos(lifetimeSeconds));
+        current.set(token);
+        Arffornia.LOGGER.info("Successfully authenticated service account. Token is valid for {} seconds.", lifetimeSeconds);
+
+        CompletableFuture.delayedExecutor(refreshDelay, TimeUnit.SECONDS).execute(() -> {
+            // Skip the refresh if the token was already replaced or invalidated in the meantime.
+            if (current.get() == token) {
+                refresh();
+            }
+        });
+    }
+
+    /**
+     * @return The lifetime announced by the API in {@code expires_in}, or the configured default.
+     */
+    private long readLifetimeSeconds(JsonObject jsonResponse) {
+        @Nullable JsonElement expiresIn = jsonResponse.get("expires_in");
+        if (expiresIn != null && expiresIn.isJsonPrimitive() && expiresIn.getAsJsonPrimitive().isNumber()) {
+            long seconds = expiresIn.getAsLong();
+            if (seconds > 0) {
+                return seconds;
+            }
+        }
+        return SERVICE_TOKEN_LIFETIME_SECONDS.get();
+    }
+}
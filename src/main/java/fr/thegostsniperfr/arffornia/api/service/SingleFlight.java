@@ -0,0 +1,61 @@
+package fr.thegostsniperfr.arffornia.api.service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent asynchronous calls sharing the same key into a single in-flight call.
+ * While a call for a key is running, every other caller for that key receives the same result
+ * instead of starting a new request.
+ *
+ * @param <K> The type of the key identifying a call.
+ * @param <V> The type of the result.
+ */
+public class SingleFlight<K, V> {
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the in-flight future for the given key, or starts a new call if there is none.
+     *
+     * @param key    The key identifying the call.
+     * @param loader Starts the call. Only invoked if no call for this key is in flight.
+     * @return A future completed with the shared result.
+     */
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        CompletableFuture<V> promise = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, promise);
+        if (existing != null) {
+            return existing.copy();
+        }
+
+        try {
+            loader.get().whenComplete((value, ex) -> {
+                inFlight.remove(key, promise);
+                if (ex != null) {
+                    promise.completeExceptionally(ex);
+                } else {
+                    promise.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, promise);
+            promise.completeExceptionally(e);
+        }
+
+        return promise.copy();
+    }
+
+    /**
+     * @return The number of calls currently in flight.
+     */
+    public int size() {
+        return inFlight.size();
+    }
+}
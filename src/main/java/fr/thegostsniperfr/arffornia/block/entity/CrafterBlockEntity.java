@@ -1,9 +1,9 @@
 package fr.thegostsniperfr.arffornia.block.entity;
 
-import com.google.common.collect.Maps;
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.recipe.CompiledRecipe;
 import fr.thegostsniperfr.arffornia.recipe.CustomRecipeManager;
 import fr.thegostsniperfr.arffornia.screen.CrafterMenu;
 import net.minecraft.core.BlockPos;
@@ -14,7 +14,7 @@ import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
-import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
@@ -30,7 +30,8 @@ import net.neoforged.neoforge.items.ItemStackHandler;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
@@ -54,6 +55,27 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
     private int clientEnergy = -1;
     private int ticksSinceLastUpdate = 0;
 
+    /**
+     * Set when the selected recipe cannot be crafted, or when the buffer lacks the energy for the next tick.
+     * A sleeping crafter skips the inventory scan until {@link #wakeUp()} is called by an inventory change,
+     * a recipe selection, or an energy receive covering {@link #sleepingEnergyNeeded}.
+     */
+    private boolean sleeping = false;
+    /**
+     * The energy the crafter needs to make progress, if it went to sleep for lack of energy; 0 otherwise.
+     * Receiving energy only wakes the crafter once this much is stored.
+     */
+    private int sleepingEnergyNeeded = 0;
+    /**
+     * The custom recipe generation the crafter went to sleep with, so that it re-checks its recipe after a reload.
+     */
+    private long sleepingRecipeGeneration = -1;
+
+    /**
+     * Players currently looking at this crafter's menu. Only accessed from the server thread.
+     */
+    private final List<ServerPlayer> viewers = new ArrayList<>();
+
     public CrafterBlockEntity(BlockPos pPos, BlockState pBlockState) {
         super(ModBlockEntities.CRAFTER_BE.get(), pPos, pBlockState);
     }
@@ -63,49 +85,97 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
             return;
         }
 
+        if (be.sleeping && be.sleepingRecipeGeneration != CustomRecipeManager.getRecipeGeneration()) {
+            be.wakeUp();
+        }
+
         boolean hasWork = false;
-        ArfforniaApiDtos.CustomRecipe currentRecipe = be.getSelectedRecipe();
 
-        if (currentRecipe != null && be.canCraft(currentRecipe)) {
-            hasWork = true;
-            be.maxProgress = currentRecipe.time() != null && currentRecipe.time() > 0 ? currentRecipe.time() : 200;
-            int totalEnergyCost = currentRecipe.energy() != null ? currentRecipe.energy() : 0;
+        // A crafter waiting for energy keeps its progress while asleep.
+        if (!be.sleeping) {
+            CompiledRecipe currentRecipe = be.getSelectedCompiledRecipe();
 
-            int energyPerTick = totalEnergyCost > 0 ? (int) Math.floor((double) totalEnergyCost / be.maxProgress) : 0;
+            if (currentRecipe != null && be.canCraft(currentRecipe)) {
+                be.maxProgress = currentRecipe.time();
+                int totalEnergyCost = currentRecipe.energy();
 
-            if (be.energyStorage.getEnergyStored() >= energyPerTick) {
-                be.energyStorage.extractEnergy(energyPerTick, false);
-                be.progress++;
-            }
+                int energyPerTick = totalEnergyCost > 0 ? (int) Math.floor((double) totalEnergyCost / be.maxProgress) : 0;
 
-            if (be.progress >= be.maxProgress) {
-                be.craftItem(currentRecipe);
-                be.progress = 0;
-            }
-        } else {
-            if (be.progress != 0) {
+                if (be.energyStorage.getEnergyStored() >= energyPerTick) {
+                    hasWork = true;
+                    be.energyStorage.extractEnergy(energyPerTick, false);
+                    be.progress++;
+
+                    if (be.progress >= be.maxProgress) {
+                        be.craftItem(currentRecipe);
+                        be.progress = 0;
+                    }
+                } else {
+                    be.goToSleep(energyPerTick);
+                }
+            } else {
                 be.progress = 0;
+                be.goToSleep(0);
             }
         }
 
         be.ticksSinceLastUpdate++;
-        boolean needsSync = false;
-        int syncInterval = (hasWork || be.clientEnergy != be.energyStorage.getEnergyStored()) ? 10 : 40;
+        boolean energyChanged = be.clientEnergy != be.energyStorage.getEnergyStored();
+        int syncInterval = (hasWork || energyChanged) ? 10 : 40;
 
-        if(be.ticksSinceLastUpdate >= syncInterval){
-            be.clientEnergy = be.energyStorage.getEnergyStored();
-            needsSync = true;
-            be.ticksSinceLastUpdate = 0;
+        if (be.ticksSinceLastUpdate < syncInterval) {
+            return;
         }
+        be.ticksSinceLastUpdate = 0;
 
-        if(needsSync){
+        if (hasWork || energyChanged) {
+            be.clientEnergy = be.energyStorage.getEnergyStored();
             setChanged(level, pos, state);
-            level.getServer().getPlayerList().getPlayers().forEach(player -> {
-                if (player.containerMenu instanceof CrafterMenu crafterMenu && crafterMenu.blockEntity == be) {
-                    crafterMenu.broadcastChanges();
-                }
-            });
         }
+
+        if (!be.viewers.isEmpty()) {
+            be.broadcastToViewers();
+        }
+    }
+
+    /**
+     * Registers a player who opened the menu of this crafter, so that it gets synced while it is open.
+     */
+    public void addViewer(ServerPlayer player) {
+        if (!this.viewers.contains(player)) {
+            this.viewers.add(player);
+        }
+    }
+
+    public void removeViewer(ServerPlayer player) {
+        this.viewers.remove(player);
+    }
+
+    private void broadcastToViewers() {
+        // Players whose menu was closed without going through CrafterMenu#removed are dropped here.
+        this.viewers.removeIf(player -> player.hasDisconnected()
+                || !(player.containerMenu instanceof CrafterMenu crafterMenu && crafterMenu.blockEntity == this));
+
+        for (ServerPlayer player : this.viewers) {
+            player.containerMenu.broadcastChanges();
+        }
+    }
+
+    /**
+     * Makes the crafter re-check its recipe on the next tick.
+     */
+    public void wakeUp() {
+        this.sleeping = false;
+        this.sleepingEnergyNeeded = 0;
+    }
+
+    /**
+     * @param energyNeeded The energy needed to make progress, or 0 if the crafter is not waiting for energy.
+     */
+    private void goToSleep(int energyNeeded) {
+        this.sleeping = true;
+        this.sleepingEnergyNeeded = energyNeeded;
+        this.sleepingRecipeGeneration = CustomRecipeManager.getRecipeGeneration();
     }
 
     public int getClientEnergyForDataSlot() {
@@ -116,40 +186,30 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         this.clientEnergy = energy;
     }
 
-    private boolean canCraft(ArfforniaApiDtos.CustomRecipe recipe) {
-        Map<Item, Integer> requiredItems = Maps.newHashMap();
-        for (ArfforniaApiDtos.RecipeIngredient ingredient : recipe.ingredients()) {
-            if (ingredient != null) {
-                Item item = net.minecraft.core.registries.BuiltInRegistries.ITEM.get(ResourceLocation.parse(ingredient.item()));
-                requiredItems.merge(item, ingredient.count(), Integer::sum);
-            }
-        }
-
-        if (requiredItems.isEmpty()) {
+    private boolean canCraft(CompiledRecipe recipe) {
+        if (!recipe.isValid()) {
             return false;
         }
 
-        for (int i = 0; i < INPUT_SLOTS; i++) {
-            ItemStack stackInSlot = this.itemHandler.getStackInSlot(i);
-            if (!stackInSlot.isEmpty()) {
-                Item item = stackInSlot.getItem();
-                if (requiredItems.containsKey(item)) {
-                    int needed = requiredItems.get(item);
-                    int count = Math.min(needed, stackInSlot.getCount());
-                    requiredItems.merge(item, -count, Integer::sum);
+        for (int ingredient = 0; ingredient < recipe.ingredientTypeCount(); ingredient++) {
+            Item item = recipe.ingredientItem(ingredient);
+            int needed = recipe.ingredientCount(ingredient);
+
+            for (int i = 0; i < INPUT_SLOTS && needed > 0; i++) {
+                ItemStack stackInSlot = this.itemHandler.getStackInSlot(i);
+                if (stackInSlot.is(item)) {
+                    needed -= stackInSlot.getCount();
                 }
             }
-        }
 
-        if (requiredItems.values().stream().anyMatch(count -> count > 0)) {
-            return false;
+            if (needed > 0) {
+                return false;
+            }
         }
 
-        for (int i = 0; i < recipe.result().size(); i++) {
+        for (int i = 0; i < recipe.resultCount(); i++) {
             if (i >= OUTPUT_SLOTS) break;
-            ArfforniaApiDtos.RecipeResult result = recipe.result().get(i);
-            Item resultItem = net.minecraft.core.registries.BuiltInRegistries.ITEM.get(ResourceLocation.parse(result.item()));
-            ItemStack resultStack = new ItemStack(resultItem, result.count());
+            ItemStack resultStack = recipe.result(i);
             ItemStack outputStack = this.itemHandler.getStackInSlot(INPUT_SLOTS + i);
 
             if (!outputStack.isEmpty()) {
@@ -165,14 +225,10 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         return true;
     }
 
-    private void craftItem(ArfforniaApiDtos.CustomRecipe recipe) {
-        for (ArfforniaApiDtos.RecipeIngredient ingredient : recipe.ingredients()) {
-            if (ingredient == null) {
-                continue;
-            }
-
-            Item requiredItem = net.minecraft.core.registries.BuiltInRegistries.ITEM.get(ResourceLocation.parse(ingredient.item()));
-            int amountToConsume = ingredient.count();
+    private void craftItem(CompiledRecipe recipe) {
+        for (int ingredient = 0; ingredient < recipe.ingredientTypeCount(); ingredient++) {
+            Item requiredItem = recipe.ingredientItem(ingredient);
+            int amountToConsume = recipe.ingredientCount(ingredient);
             for (int i = 0; i < INPUT_SLOTS; i++) {
                 if (amountToConsume <= 0) break;
                 ItemStack stackInSlot = this.itemHandler.getStackInSlot(i);
@@ -184,11 +240,9 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
             }
         }
 
-        for (int i = 0; i < recipe.result().size(); i++) {
+        for (int i = 0; i < recipe.resultCount(); i++) {
             if (i >= OUTPUT_SLOTS) break;
-            ArfforniaApiDtos.RecipeResult result = recipe.result().get(i);
-            ItemStack resultStack = new ItemStack(net.minecraft.core.registries.BuiltInRegistries.ITEM.get(ResourceLocation.parse(result.item())), result.count());
-            this.itemHandler.insertItem(INPUT_SLOTS + i, resultStack, false);
+            this.itemHandler.insertItem(INPUT_SLOTS + i, recipe.result(i).copy(), false);
         }
     }
 
@@ -200,6 +254,9 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
     @Nullable
     @Override
     public AbstractContainerMenu createMenu(int pContainerId, Inventory pPlayerInventory, Player pPlayer) {
+        if (pPlayer instanceof ServerPlayer serverPlayer) {
+            addViewer(serverPlayer);
+        }
         return new CrafterMenu(pContainerId, pPlayerInventory, this);
     }
 
@@ -217,10 +274,16 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         return this.selectedRecipeMilestoneUnlockId != null ? CustomRecipeManager.getRecipeByMilestoneUnlockId(this.selectedRecipeMilestoneUnlockId) : null;
     }
 
+    @Nullable
+    private CompiledRecipe getSelectedCompiledRecipe() {
+        return this.selectedRecipeMilestoneUnlockId != null ? CustomRecipeManager.getCompiledRecipe(this.selectedRecipeMilestoneUnlockId) : null;
+    }
+
     public void setSelectedRecipe(@Nullable Integer milestoneUnlockId) {
         if (!Objects.equals(this.selectedRecipeMilestoneUnlockId, milestoneUnlockId)) {
             this.selectedRecipeMilestoneUnlockId = milestoneUnlockId;
             this.progress = 0;
+            wakeUp();
             setChanged();
             if (level != null) {
                 level.sendBlockUpdated(worldPosition, getBlockState(), getBlockState(), 3);
@@ -244,6 +307,7 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         return new ItemStackHandler(TOTAL_SLOTS) {
             @Override
             protected void onContentsChanged(int slot) {
+                wakeUp();
                 setChanged();
             }
         };
@@ -365,6 +429,7 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         // Safety check to prevent division-by-zero if maxProgress is invalid from a save
         int loadedMaxProgress = pTag.getInt("maxProgress");
         maxProgress = (loadedMaxProgress > 0) ? loadedMaxProgress : 200;
+        wakeUp();
     }
 
     @Nullable
@@ -419,11 +484,21 @@ public class CrafterBlockEntity extends BlockEntity implements MenuProvider {
         return this.level != null && this.level.getBlockEntity(this.worldPosition) == this && pPlayer.distanceToSqr(this.worldPosition.getCenter()) <= 64.0;
     }
 
-    private static class CustomEnergyStorage extends EnergyStorage {
+    private class CustomEnergyStorage extends EnergyStorage {
         public CustomEnergyStorage(int capacity, int maxTransfer) {
             super(capacity, maxTransfer, maxTransfer);
         }
 
+        @Override
+        public int receiveEnergy(int toReceive, boolean simulate) {
+            int received = super.receiveEnergy(toReceive, simulate);
+            // Only a crafter waiting for energy can be unblocked by it; one waiting for items stays asleep.
+            if (!simulate && received > 0 && sleepingEnergyNeeded > 0 && this.energy >= sleepingEnergyNeeded) {
+                wakeUp();
+            }
+            return received;
+        }
+
         public void setEnergy(int energy) {
             this.energy = energy;
         }
@@ -0,0 +1,101 @@
+package fr.thegostsniperfr.arffornia.block.entity;
+
+import it.unimi.dsi.fastutil.ints.IntRBTreeSet;
+import it.unimi.dsi.fastutil.ints.IntSortedSet;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.neoforged.neoforge.items.IItemHandler;
+
+import java.util.Arrays;
+
+/**
+ * Incrementally maintained index of the items held by an inventory: the total count of each item and the slots holding it.
+ * The last indexed content of every slot is remembered, so a changed slot can be re-indexed without scanning the inventory.
+ */
+public class ItemCountIndex {
+    private static final int[] NO_SLOTS = new int[0];
+
+    private final Item[] slotItems;
+    private final int[] slotCounts;
+    private final Reference2IntOpenHashMap<Item> totals = new Reference2IntOpenHashMap<>();
+    private final Reference2ObjectOpenHashMap<Item, IntSortedSet> slotsByItem = new Reference2ObjectOpenHashMap<>();
+
+    public ItemCountIndex(int slots) {
+        this.slotItems = new Item[slots];
+        this.slotCounts = new int[slots];
+    }
+
+    /**
+     * Re-indexes a single slot from its current content.
+     *
+     * @param slot  The slot that changed.
+     * @param stack The stack now held in that slot.
+     */
+    public void update(int slot, ItemStack stack) {
+        Item newItem = stack.isEmpty() ? null : stack.getItem();
+        int newCount = stack.isEmpty() ? 0 : stack.getCount();
+        Item oldItem = slotItems[slot];
+        int oldCount = slotCounts[slot];
+
+        if (oldItem == newItem && oldCount == newCount) {
+            return;
+        }
+
+        if (oldItem != null) {
+            if (totals.addTo(oldItem, -oldCount) - oldCount <= 0) {
+                totals.removeInt(oldItem);
+            }
+            if (oldItem != newItem) {
+                IntSortedSet slots = slotsByItem.get(oldItem);
+                if (slots != null) {
+                    slots.remove(slot);
+                    if (slots.isEmpty()) {
+                        slotsByItem.remove(oldItem);
+                    }
+                }
+            }
+        }
+
+        if (newItem != null) {
+            totals.addTo(newItem, newCount);
+            if (oldItem != newItem) {
+                slotsByItem.computeIfAbsent(newItem, k -> new IntRBTreeSet()).add(slot);
+            }
+        }
+
+        slotItems[slot] = newItem;
+        slotCounts[slot] = newCount;
+    }
+
+    /**
+     * Discards the index and rebuilds it from the whole inventory.
+     */
+    public void rebuild(IItemHandler handler) {
+        totals.clear();
+        slotsByItem.clear();
+        Arrays.fill(slotItems, null);
+        Arrays.fill(slotCounts, 0);
+
+        int limit = Math.min(handler.getSlots(), slotItems.length);
+        for (int i = 0; i < limit; i++) {
+            update(i, handler.getStackInSlot(i));
+        }
+    }
+
+    /**
+     * @return The total amount of the given item in the inventory.
+     */
+    public int count(Item item) {
+        return totals.getInt(item);
+    }
+
+    /**
+     * @return A copy of the slots holding the given item, in ascending order.
+     */
+    public int[] slotsOf(Item item) {
+        IntSortedSet slots = slotsByItem.get(item);
+        return slots != null ? slots.toIntArray() : NO_SLOTS;
+    }
+}
@@ -3,20 +3,25 @@ package fr.thegostsniperfr.arffornia.block.entity;
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.api.service.MutationQueue;
 import fr.thegostsniperfr.arffornia.screen.SpaceElevatorMenu;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.GlobalPos;
 import net.minecraft.core.HolderLookup;
 import net.minecraft.core.component.DataComponents;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientGamePacketListener;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.util.RandomSource;
 import net.minecraft.world.Containers;
@@ -34,20 +39,51 @@ import net.minecraft.world.item.component.Fireworks;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.neoforged.neoforge.items.IItemHandler;
+import net.neoforged.neoforge.items.ItemHandlerHelper;
 import net.neoforged.neoforge.items.ItemStackHandler;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvider {
-    public final ItemStackHandler itemHandler = new ItemStackHandler(70);
+    private static final int INVENTORY_SLOTS = 70;
+
+    private final ItemCountIndex itemIndex = new ItemCountIndex(INVENTORY_SLOTS);
+    public final ItemStackHandler itemHandler = new ItemStackHandler(INVENTORY_SLOTS) {
+        @Override
+        protected void onContentsChanged(int slot) {
+            itemIndex.update(slot, getStackInSlot(slot));
+        }
+    };
     private final IItemHandler automationHandler;
     @Nullable
     public ArfforniaApiDtos.MilestoneDetails cachedMilestoneDetails;
     private long linkedProgressionId = -1;
     private boolean isLaunching = false;
+    /**
+     * A launch whose completion was queued, kept until the API accepts or refuses it.
+     */
+    @Nullable
+    private PendingLaunch pendingLaunch = null;
+
+    /**
+     * The position of the elevator of each pending launch, by mutation id, so late outcomes can be routed back to it.
+     */
+    private static final Map<String, GlobalPos> PENDING_LAUNCH_POSITIONS = new ConcurrentHashMap<>();
+
+    /**
+     * @param mutationId    The idempotency key of the queued milestone completion.
+     * @param consumedItems The items taken from the elevator, given back if the completion is refused.
+     */
+    private record PendingLaunch(UUID playerUuid, String playerName, int milestoneId, String milestoneName, int stageNumber,
+                                 String mutationId, List<ItemStack> consumedItems) {
+    }
 
     public SpaceElevatorBlockEntity(BlockPos pPos, BlockState pBlockState) {
         super(ModBlockEntities.SPACE_ELEVATOR_BE.get(), pPos, pBlockState);
@@ -93,15 +129,14 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
     }
 
     public int countItems(Item item) {
-        int count = 0;
-
-        for (int i = 0; i < itemHandler.getSlots(); i++) {
-            if (itemHandler.getStackInSlot(i).is(item)) {
-                count += itemHandler.getStackInSlot(i).getCount();
-            }
-        }
+        return itemIndex.count(item);
+    }
 
-        return count;
+    /**
+     * Re-indexes a slot whose stack may have been modified in place, without going through the item handler.
+     */
+    public void refreshIndexedSlot(int slot) {
+        itemIndex.update(slot, itemHandler.getStackInSlot(slot));
     }
 
     public boolean areRequirementsMet(@Nullable ArfforniaApiDtos.MilestoneDetails details) {
@@ -127,7 +162,7 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
             Item requiredItem = BuiltInRegistries.ITEM.get(ResourceLocation.parse(requirement.itemId()));
             int amountToConsume = requirement.amount();
 
-            for (int i = 0; i < itemHandler.getSlots(); i++) {
+            for (int i : itemIndex.slotsOf(requiredItem)) {
                 if (amountToConsume <= 0) break;
                 if (itemHandler.getStackInSlot(i).is(requiredItem)) {
                     ItemStack extractedStack = itemHandler.extractItem(i, amountToConsume, false);
@@ -157,6 +192,11 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
         if (level == null || level.isClientSide() || isLaunching || !areRequirementsMet(this.cachedMilestoneDetails))
             return;
 
+        if (pendingLaunch != null) {
+            player.sendSystemMessage(Component.literal("§eThe previous launch of this Space Elevator is still waiting to be validated by the Arffornia servers."));
+            return;
+        }
+
         final ArfforniaApiDtos.MilestoneDetails details = this.cachedMilestoneDetails;
         if (details == null) {
             Arffornia.LOGGER.error("Launch triggered at {} but milestone details were not cached.", getBlockPos());
@@ -164,37 +204,139 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
         }
 
         // --- TRANSACTIONAL LOGIC ---
+        // The launch is recorded before the completion is sent, so it is resolved even if the server stops meanwhile.
+        final PendingLaunch launch = new PendingLaunch(player.getUUID(), player.getName().getString(), details.id(), details.name(),
+                details.stageNumber() != null ? details.stageNumber() : 1, MutationQueue.newMutationId(), consumeRequirements());
         this.isLaunching = true;
+        this.pendingLaunch = launch;
+        PENDING_LAUNCH_POSITIONS.put(launch.mutationId(), GlobalPos.of(level.dimension(), getBlockPos()));
         setChanged();
 
-        final List<ItemStack> consumedItems = consumeRequirements();
-        final int activeMilestoneId = details.id();
-
-        ArfforniaApiService.getInstance().addMilestone(player.getUUID(), activeMilestoneId)
-                .thenAcceptAsync(success -> {
-                    if (success) {
-                        Component playerName = player.getDisplayName();
-                        Component message = Component.empty()
-                                .append(playerName)
-                                .append(Component.literal(" has completed the milestone: "))
-                                .append(Component.literal(details.name()).withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD));
-
-                        player.getServer().getPlayerList().broadcastSystemMessage(message, false);
-
-                        int stageNumber = details.stageNumber() != null ? details.stageNumber() : 1;
-                        for (int i = 0; i < stageNumber; i++) {
-                            spawnFirework();
-                        }
+        ArfforniaApiService.getInstance().addMilestone(player.getUUID(), launch.milestoneId(), launch.mutationId())
+                .thenAcceptAsync(result -> {
+                    if (result == MutationQueue.Result.QUEUED) {
+                        // The completion is journaled and will reach the API later, so the items are kept until it is resolved.
+                        Arffornia.LOGGER.warn("API is unreachable, completion of milestone {} for player {} was queued.", launch.milestoneId(), player.getUUID());
+                        player.sendSystemMessage(Component.literal("§eThe Arffornia servers are unreachable. Your milestone completion has been saved and will be validated automatically."));
+                    } else if (result == MutationQueue.Result.DELIVERED) {
+                        completeLaunch(launch);
                     } else {
-                        Arffornia.LOGGER.error("API call to complete milestone {} for player {} failed. Refunding items.", activeMilestoneId, player.getUUID());
+                        Arffornia.LOGGER.error("API call to complete milestone {} for player {} failed. Refunding items.", launch.milestoneId(), player.getUUID());
                         player.sendSystemMessage(Component.literal("§cAn error occurred while validating the milestone. Your items have been refunded.").withStyle(ChatFormatting.RED));
-                        refundItems(player, consumedItems);
+                        refundItems(player, launch.consumedItems());
+                        clearPendingLaunch(launch);
                     }
                     this.isLaunching = false;
                     setChanged();
                 }, player.getServer());
     }
 
+    /**
+     * Routes the outcome of a queued milestone completion back to its Space Elevator.
+     * Registered on the {@link MutationQueue}; called on its sender thread.
+     */
+    public static void onLateLaunchOutcome(String mutationId, MutationQueue.Result result) {
+        GlobalPos pos = PENDING_LAUNCH_POSITIONS.get(mutationId);
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (pos == null || server == null) {
+            return;
+        }
+
+        server.execute(() -> {
+            ServerLevel serverLevel = server.getLevel(pos.dimension());
+            // An unloaded elevator picks the outcome up from the queue when it loads again.
+            if (serverLevel != null && serverLevel.isLoaded(pos.pos())
+                    && serverLevel.getBlockEntity(pos.pos()) instanceof SpaceElevatorBlockEntity elevator) {
+                elevator.resolvePendingLaunch(mutationId, result);
+            }
+        });
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        if (level == null || level.isClientSide() || pendingLaunch == null) {
+            return;
+        }
+
+        PendingLaunch launch = pendingLaunch;
+        PENDING_LAUNCH_POSITIONS.put(launch.mutationId(), GlobalPos.of(level.dimension(), getBlockPos()));
+        MutationQueue.Result result = ArfforniaApiService.getInstance().getMutationQueue().getOutcome(launch.mutationId());
+        if (result != MutationQueue.Result.QUEUED) {
+            // Resolved while the elevator was unloaded, possibly before a restart; the block entity cannot be modified while it is being loaded.
+            level.getServer().execute(() -> resolvePendingLaunch(launch.mutationId(), result));
+        }
+    }
+
+    /**
+     * @param result The late outcome of the launch, or null if the queue no longer knows it.
+     */
+    private void resolvePendingLaunch(String mutationId, @Nullable MutationQueue.Result result) {
+        PendingLaunch launch = this.pendingLaunch;
+        if (launch == null || !launch.mutationId().equals(mutationId) || isRemoved()) {
+            return;
+        }
+
+        if (result == MutationQueue.Result.DELIVERED) {
+            Arffornia.LOGGER.info("Queued completion of milestone {} for player {} was validated.", launch.milestoneId(), launch.playerUuid());
+            completeLaunch(launch);
+        } else if (result == MutationQueue.Result.REJECTED) {
+            Arffornia.LOGGER.error("Queued completion of milestone {} for player {} was refused by the API. Returning items to the Space Elevator at {}.",
+                    launch.milestoneId(), launch.playerUuid(), getBlockPos());
+            returnLaunchItems(launch, "was refused");
+        } else {
+            // Without a recorded outcome the completion cannot be shown to have been applied, so the items are not dropped.
+            Arffornia.LOGGER.warn("Outcome of the queued completion of milestone {} for player {} is unknown. Returning items to the Space Elevator at {}.",
+                    launch.milestoneId(), launch.playerUuid(), getBlockPos());
+            returnLaunchItems(launch, "could not be confirmed");
+        }
+    }
+
+    /**
+     * Gives the items of a launch that was not applied back to the elevator, since the player may be offline or far away.
+     */
+    private void returnLaunchItems(PendingLaunch launch, String reason) {
+        returnItems(launch.consumedItems());
+        ServerPlayer player = level.getServer().getPlayerList().getPlayer(launch.playerUuid());
+        if (player != null) {
+            player.sendSystemMessage(Component.literal("§cYour saved completion of the milestone " + launch.milestoneName()
+                    + " " + reason + ". The items have been returned to the Space Elevator.").withStyle(ChatFormatting.RED));
+        }
+        clearPendingLaunch(launch);
+    }
+
+    private void completeLaunch(PendingLaunch launch) {
+        Component message = Component.empty()
+                .append(Component.literal(launch.playerName()))
+                .append(Component.literal(" has completed the milestone: "))
+                .append(Component.literal(launch.milestoneName()).withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD));
+
+        level.getServer().getPlayerList().broadcastSystemMessage(message, false);
+
+        for (int i = 0; i < launch.stageNumber(); i++) {
+            spawnFirework();
+        }
+        clearPendingLaunch(launch);
+    }
+
+    private void clearPendingLaunch(PendingLaunch launch) {
+        PENDING_LAUNCH_POSITIONS.remove(launch.mutationId());
+        if (this.pendingLaunch == launch) {
+            this.pendingLaunch = null;
+            setChanged();
+        }
+    }
+
+    private void returnItems(List<ItemStack> itemsToReturn) {
+        for (ItemStack stack : itemsToReturn) {
+            ItemStack remaining = ItemHandlerHelper.insertItemStacked(itemHandler, stack.copy(), false);
+            if (!remaining.isEmpty()) {
+                BlockPos pos = getBlockPos();
+                Containers.dropItemStack(level, pos.getX() + 0.5, pos.getY() + 1, pos.getZ() + 0.5, remaining);
+            }
+        }
+    }
+
     private void refundItems(ServerPlayer player, List<ItemStack> itemsToRefund) {
         for (ItemStack stack : itemsToRefund) {
             if (!player.getInventory().add(stack)) {
@@ -245,6 +387,23 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
         pTag.put("inventory", itemHandler.serializeNBT(pRegistries));
         pTag.putLong("linkedProgressionId", linkedProgressionId);
         pTag.putBoolean("isLaunching", isLaunching);
+
+        if (pendingLaunch != null) {
+            CompoundTag launchTag = new CompoundTag();
+            launchTag.putUUID("player", pendingLaunch.playerUuid());
+            launchTag.putString("playerName", pendingLaunch.playerName());
+            launchTag.putInt("milestoneId", pendingLaunch.milestoneId());
+            launchTag.putString("milestoneName", pendingLaunch.milestoneName());
+            launchTag.putInt("stageNumber", pendingLaunch.stageNumber());
+            launchTag.putString("mutationId", pendingLaunch.mutationId());
+
+            ListTag items = new ListTag();
+            for (ItemStack stack : pendingLaunch.consumedItems()) {
+                items.add(stack.save(pRegistries));
+            }
+            launchTag.put("consumedItems", items);
+            pTag.put("pendingLaunch", launchTag);
+        }
     }
 
     @Override
@@ -263,12 +422,25 @@ public class SpaceElevatorBlockEntity extends BlockEntity implements MenuProvide
                 this.itemHandler.setStackInSlot(i, savedHandler.getStackInSlot(i));
             }
         }
+        itemIndex.rebuild(itemHandler);
 
         if (pTag.contains("linkedProgressionId")) {
             this.linkedProgressionId = pTag.getLong("linkedProgressionId");
         }
 
         this.isLaunching = pTag.getBoolean("isLaunching");
+
+        this.pendingLaunch = null;
+        if (pTag.contains("pendingLaunch", Tag.TAG_COMPOUND)) {
+            CompoundTag launchTag = pTag.getCompound("pendingLaunch");
+            List<ItemStack> items = new ArrayList<>();
+            for (Tag itemTag : launchTag.getList("consumedItems", Tag.TAG_COMPOUND)) {
+                ItemStack.parse(pRegistries, itemTag).ifPresent(items::add);
+            }
+            this.pendingLaunch = new PendingLaunch(launchTag.getUUID("player"), launchTag.getString("playerName"),
+                    launchTag.getInt("milestoneId"), launchTag.getString("milestoneName"), launchTag.getInt("stageNumber"),
+                    launchTag.getString("mutationId"), items);
+        }
     }
 
     public void setOwner(Player player) {
@@ -2,10 +2,13 @@ package fr.thegostsniperfr.arffornia.client;
 
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.client.screen.ProgressionGraphScreen;
+import fr.thegostsniperfr.arffornia.client.screen.graph.MilestoneDetailsCache;
+import fr.thegostsniperfr.arffornia.recipe.ClientRecipeCache;
 import net.minecraft.client.Minecraft;
 import net.neoforged.api.distmarker.Dist;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.fml.common.EventBusSubscriber;
+import net.neoforged.neoforge.client.event.ClientPlayerNetworkEvent;
 import net.neoforged.neoforge.client.event.InputEvent;
 
 @EventBusSubscriber(modid = Arffornia.MODID, value = Dist.CLIENT)
@@ -17,4 +20,11 @@ public class ClientEvents {
             Minecraft.getInstance().setScreen(new ProgressionGraphScreen());
         }
     }
+
+    @SubscribeEvent
+    public static void onLoggingOut(ClientPlayerNetworkEvent.LoggingOut event) {
+        // Milestone details and recipes may differ on the next server.
+        MilestoneDetailsCache.clear();
+        ClientRecipeCache.clear();
+    }
 }
\ No newline at end of file
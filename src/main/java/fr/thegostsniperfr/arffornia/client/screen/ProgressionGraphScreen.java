@@ -6,6 +6,10 @@ import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
 import fr.thegostsniperfr.arffornia.client.ClientProgressionData;
+import fr.thegostsniperfr.arffornia.client.screen.graph.MilestoneDetailsCache;
+import fr.thegostsniperfr.arffornia.client.screen.graph.MilestoneGraph;
+import fr.thegostsniperfr.arffornia.client.screen.graph.QuadBatch;
+import fr.thegostsniperfr.arffornia.client.screen.graph.SpatialGrid;
 import fr.thegostsniperfr.arffornia.client.util.SoundUtils;
 import fr.thegostsniperfr.arffornia.network.ServerboundSetTargetMilestonePacket;
 import net.minecraft.ChatFormatting;
@@ -27,6 +31,7 @@ import org.joml.Vector2i;
 import net.minecraft.client.gui.components.ImageButton;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 /**
@@ -67,6 +72,11 @@ public class ProgressionGraphScreen extends Screen {
 
     private static final float ROTATION_SPEED = 2.5f;
 
+    /**
+     * The size, in world units, of a cell of the spatial indexes. Four grid cells, so a typical screen covers a few dozen cells.
+     */
+    private static final double SPATIAL_CELL_SIZE = BASE_GRID_CELL_SPACING * 4;
+
     // --- DATA STRUCTURES ---
     private final Set<Integer> availableMilestones = new HashSet<>();
     /**
@@ -76,13 +86,22 @@ public class ProgressionGraphScreen extends Screen {
 
     // --- API & DATA STATE ---
     /**
-     * The list of all links currently loaded from the API.
+     * The direct links between nodes, one per prerequisite.
      */
     private List<NodeLink> links = Collections.emptyList();
+    /**
+     * The direct prerequisites of each milestone, derived from the closure table.
+     */
+    private MilestoneGraph milestoneGraph = new MilestoneGraph(List.of(), List.of());
     /**
      * A quick-access map to find nodes by their ID.
      */
     private Map<Integer, ProgressionNode> nodeMap = Collections.emptyMap();
+    /**
+     * Spatial indexes of the nodes and links by their world bounds, indexed by their position in {@link #nodes} and {@link #links}.
+     */
+    private SpatialGrid nodeGrid = new SpatialGrid(SPATIAL_CELL_SIZE, 0);
+    private SpatialGrid linkGrid = new SpatialGrid(SPATIAL_CELL_SIZE, 0);
     /**
      * The current loading state of the screen.
      */
@@ -96,6 +115,18 @@ public class ProgressionGraphScreen extends Screen {
 
     // --- UI STATE ---
     private ProgressionNode selectedNode = null;
+    private int lastHoveredNodeId = -1;
+
+    // --- CACHED GEOMETRY ---
+    private final QuadBatch gridQuads = new QuadBatch();
+    private final QuadBatch linkQuads = new QuadBatch();
+    /**
+     * Set when the graph data changes, so the geometry is rebuilt on the next frame even if the view did not move.
+     */
+    private boolean geometryDirty = true;
+    private double geometryCameraX, geometryCameraY;
+    private float geometryZoom;
+    private int geometryWidth, geometryHeight;
     private boolean isDragging = false;
     private Set<Integer> completedMilestones = new HashSet<>();
     private @Nullable Integer currentTargetId = null;
@@ -166,15 +197,28 @@ public class ProgressionGraphScreen extends Screen {
                     return;
                 }
 
+                // Details fetched while the screen was previously open are applied right away.
                 this.nodes = playerData.milestones().stream()
-                        .map(m -> new ProgressionNode(m.id(), "Loading...", "", m.x(), m.y(), m.iconType(), m.stageNumber()))
-                        .collect(Collectors.toList());
-
-                this.links = playerData.milestoneClosure().stream()
-                        .map(l -> new NodeLink(l.milestoneId(), l.descendantId()))
-                        .collect(Collectors.toList());
+                        .map(m -> {
+                            ArfforniaApiDtos.MilestoneDetails cached = MilestoneDetailsCache.get(m.id());
+                            return cached != null
+                                    ? new ProgressionNode(m.id(), cached.name(), cached.description(), m.x(), m.y(), m.iconType(), m.stageNumber())
+                                    : new ProgressionNode(m.id(), "Loading...", "", m.x(), m.y(), m.iconType(), m.stageNumber());
+                        })
+                        .collect(Collectors.toCollection(ArrayList::new));
+
+                // The closure table links every ancestor to every descendant; only the direct relations are kept.
+                this.milestoneGraph = new MilestoneGraph(this.nodes.stream().map(ProgressionNode::id).toList(), playerData.milestoneClosure());
+                List<NodeLink> directLinks = new ArrayList<>(this.milestoneGraph.getEdgeCount());
+                for (int i = 0; i < this.milestoneGraph.size(); i++) {
+                    for (int child : this.milestoneGraph.childrenOf(i)) {
+                        directLinks.add(new NodeLink(this.milestoneGraph.idAt(i), this.milestoneGraph.idAt(child)));
+                    }
+                }
+                this.links = directLinks;
 
                 this.nodeMap = this.nodes.stream().collect(Collectors.toMap(ProgressionNode::id, node -> node));
+                rebuildSpatialIndex();
 
                 this.completedMilestones = new HashSet<>(playerData.playerProgress().completedMilestones());
                 this.currentTargetId = playerData.playerProgress().currentTargetId();
@@ -183,6 +227,7 @@ public class ProgressionGraphScreen extends Screen {
                 calculateAvailableMilestones();
 
                 this.status = LoadingStatus.IDLE;
+                this.geometryDirty = true;
 
                 if (this.currentTargetId != null) {
                     fetchAndApplyNodeDetails(this.currentTargetId);
@@ -193,6 +238,45 @@ public class ProgressionGraphScreen extends Screen {
         });
     }
 
+    /**
+     * Rebuilds the spatial indexes of the nodes and links. Must be called whenever {@link #nodes} or {@link #links} change.
+     */
+    private void rebuildSpatialIndex() {
+        double nodeRadius = BASE_NODE_DIAMETER / 2.0;
+        SpatialGrid newNodeGrid = new SpatialGrid(SPATIAL_CELL_SIZE, this.nodes.size());
+        for (int i = 0; i < this.nodes.size(); i++) {
+            ProgressionNode node = this.nodes.get(i);
+            double x = node.gridX() * BASE_GRID_CELL_SPACING;
+            double y = node.gridY() * BASE_GRID_CELL_SPACING;
+            newNodeGrid.insert(i, x - nodeRadius, y - nodeRadius, x + nodeRadius, y + nodeRadius);
+        }
+
+        // Straight and elbow links both stay within the rectangle between their two nodes.
+        double lineRadius = BASE_LINE_THICKNESS;
+        SpatialGrid newLinkGrid = new SpatialGrid(SPATIAL_CELL_SIZE, this.links.size());
+        for (int i = 0; i < this.links.size(); i++) {
+            NodeLink link = this.links.get(i);
+            ProgressionNode source = this.nodeMap.get(link.sourceId());
+            ProgressionNode target = this.nodeMap.get(link.targetId());
+            if (source == null || target == null) continue;
+
+            double x1 = source.gridX() * BASE_GRID_CELL_SPACING, y1 = source.gridY() * BASE_GRID_CELL_SPACING;
+            double x2 = target.gridX() * BASE_GRID_CELL_SPACING, y2 = target.gridY() * BASE_GRID_CELL_SPACING;
+            newLinkGrid.insert(i, Math.min(x1, x2) - lineRadius, Math.min(y1, y2) - lineRadius, Math.max(x1, x2) + lineRadius, Math.max(y1, y2) + lineRadius);
+        }
+
+        this.nodeGrid = newNodeGrid;
+        this.linkGrid = newLinkGrid;
+    }
+
+    /**
+     * Reports the index of every node or link of the grid that may be visible on screen.
+     */
+    private void queryVisible(SpatialGrid grid, IntConsumer consumer) {
+        grid.query(this.cameraX / this.zoom, this.cameraY / this.zoom,
+                (this.cameraX + this.width) / this.zoom, (this.cameraY + this.height) / this.zoom, consumer);
+    }
+
     // --- CONSTRUCTOR & LIFECYCLE METHODS ---
 
     /**
@@ -201,12 +285,25 @@ public class ProgressionGraphScreen extends Screen {
      */
     private void calculateAvailableMilestones() {
         this.availableMilestones.clear();
-        for (NodeLink link : this.links) {
-            // If the parent is completed but the child is not, the child becomes available.
-            if (this.completedMilestones.contains(link.sourceId()) && !this.completedMilestones.contains(link.targetId())) {
-                this.availableMilestones.add(link.targetId());
+        for (int i = 0; i < this.milestoneGraph.size(); i++) {
+            int milestoneId = this.milestoneGraph.idAt(i);
+            if (!this.completedMilestones.contains(milestoneId) && hasCompletedParent(i)) {
+                this.availableMilestones.add(milestoneId);
+            }
+        }
+    }
+
+    /**
+     * @param index The milestone's index in the milestone graph.
+     * @return true if at least one direct prerequisite of the milestone is completed.
+     */
+    private boolean hasCompletedParent(int index) {
+        for (int parent : this.milestoneGraph.parentsOf(index)) {
+            if (this.completedMilestones.contains(this.milestoneGraph.idAt(parent))) {
+                return true;
             }
         }
+        return false;
     }
 
     /**
@@ -215,7 +312,8 @@ public class ProgressionGraphScreen extends Screen {
     @Override
     public void render(GuiGraphics guiGraphics, int mouseX, int mouseY, float partialTick) {
         guiGraphics.fill(0, 0, this.width, this.height, BACKGROUND_COLOR);
-        this.drawGrid(guiGraphics);
+        this.rebuildGeometryIfNeeded();
+        this.gridQuads.draw(guiGraphics);
 
         this.rotationAngle += ROTATION_SPEED;
 
@@ -233,7 +331,7 @@ public class ProgressionGraphScreen extends Screen {
             return;
         }
 
-        this.drawConnections(guiGraphics);
+        this.linkQuads.draw(guiGraphics);
         this.drawNodes(guiGraphics);
 
         super.render(guiGraphics, mouseX, mouseY, partialTick);
@@ -251,9 +349,34 @@ public class ProgressionGraphScreen extends Screen {
     }
 
     /**
-     * Draws the two-layer grid with crosses at intersections.
+     * Rebuilds the grid and link geometry if the view or the graph data changed since the last frame.
+     * While the view is still, the cached geometry is drawn again as is.
      */
-    private void drawGrid(GuiGraphics guiGraphics) {
+    private void rebuildGeometryIfNeeded() {
+        if (!this.geometryDirty && this.geometryCameraX == this.cameraX && this.geometryCameraY == this.cameraY
+                && this.geometryZoom == this.zoom && this.geometryWidth == this.width && this.geometryHeight == this.height) {
+            return;
+        }
+
+        this.gridQuads.clear();
+        this.buildGrid(this.gridQuads);
+        this.linkQuads.clear();
+        if (this.status != LoadingStatus.LOADING_GRAPH && this.status != LoadingStatus.FAILED) {
+            this.buildConnections(this.linkQuads);
+        }
+
+        this.geometryDirty = false;
+        this.geometryCameraX = this.cameraX;
+        this.geometryCameraY = this.cameraY;
+        this.geometryZoom = this.zoom;
+        this.geometryWidth = this.width;
+        this.geometryHeight = this.height;
+    }
+
+    /**
+     * Builds the two-layer grid with crosses at intersections.
+     */
+    private void buildGrid(QuadBatch quads) {
         final int mainGridCellSize = BASE_GRID_CELL_SPACING;
         final int subGridCellSize = mainGridCellSize / 4;
         final int crossSize = 5;
@@ -263,8 +386,8 @@ public class ProgressionGraphScreen extends Screen {
         double worldRight = (this.cameraX + this.width) / this.zoom;
         double worldBottom = (this.cameraY + this.height) / this.zoom;
 
-        drawGridLines(guiGraphics, subGridCellSize, worldLeft, worldTop, worldRight, worldBottom, GRID_SUB_LINE_COLOR);
-        drawGridLines(guiGraphics, mainGridCellSize, worldLeft, worldTop, worldRight, worldBottom, GRID_MAIN_LINE_COLOR);
+        buildGridLines(quads, subGridCellSize, worldLeft, worldTop, worldRight, worldBottom, GRID_SUB_LINE_COLOR);
+        buildGridLines(quads, mainGridCellSize, worldLeft, worldTop, worldRight, worldBottom, GRID_MAIN_LINE_COLOR);
 
         float firstMainVertical = (float) (Math.floor(worldLeft / mainGridCellSize) * mainGridCellSize);
         float firstMainHorizontal = (float) (Math.floor(worldTop / mainGridCellSize) * mainGridCellSize);
@@ -275,35 +398,36 @@ public class ProgressionGraphScreen extends Screen {
                 int scaledCrossSize = (int) (crossSize * this.zoom);
                 if (scaledCrossSize < 3) continue;
 
-                guiGraphics.fill(crossScreenX - scaledCrossSize / 2, crossScreenY, crossScreenX + scaledCrossSize / 2 + 1, crossScreenY + 1, GRID_CROSS_COLOR);
-                guiGraphics.fill(crossScreenX, crossScreenY - scaledCrossSize / 2, crossScreenX + 1, crossScreenY + scaledCrossSize / 2 + 1, GRID_CROSS_COLOR);
+                quads.add(crossScreenX - scaledCrossSize / 2, crossScreenY, crossScreenX + scaledCrossSize / 2 + 1, crossScreenY + 1, GRID_CROSS_COLOR);
+                quads.add(crossScreenX, crossScreenY - scaledCrossSize / 2, crossScreenX + 1, crossScreenY + scaledCrossSize / 2 + 1, GRID_CROSS_COLOR);
             }
         }
     }
 
-    private void drawGridLines(GuiGraphics guiGraphics, int cellSize, double worldLeft, double worldTop, double worldRight, double worldBottom, int color) {
+    private void buildGridLines(QuadBatch quads, int cellSize, double worldLeft, double worldTop, double worldRight, double worldBottom, int color) {
         float firstVerticalLine = (float) (Math.floor(worldLeft / cellSize) * cellSize);
         for (float x = firstVerticalLine; x < worldRight; x += cellSize) {
             int screenX = (int) (x * this.zoom - this.cameraX);
-            guiGraphics.fill(screenX, 0, screenX + 1, this.height, color);
+            quads.add(screenX, 0, screenX + 1, this.height, color);
         }
 
         float firstHorizontalLine = (float) (Math.floor(worldTop / cellSize) * cellSize);
         for (float y = firstHorizontalLine; y < worldBottom; y += cellSize) {
             int screenY = (int) (y * this.zoom - this.cameraY);
-            guiGraphics.fill(0, screenY, this.width, screenY + 1, color);
+            quads.add(0, screenY, this.width, screenY + 1, color);
         }
     }
 
-    private void drawConnections(GuiGraphics guiGraphics) {
+    private void buildConnections(QuadBatch quads) {
         List<NodeLink> lockedLinks = new ArrayList<>();
         List<NodeLink> availableLinks = new ArrayList<>();
         List<NodeLink> completedLinks = new ArrayList<>();
 
-        for (NodeLink link : this.links) {
+        queryVisible(this.linkGrid, index -> {
+            NodeLink link = this.links.get(index);
             ProgressionNode source = nodeMap.get(link.sourceId());
             ProgressionNode target = nodeMap.get(link.targetId());
-            if (source == null || target == null) continue;
+            if (source == null || target == null) return;
 
             if (completedMilestones.contains(source.id()) && completedMilestones.contains(target.id())) {
                 completedLinks.add(link);
@@ -312,76 +436,78 @@ public class ProgressionGraphScreen extends Screen {
             } else {
                 lockedLinks.add(link);
             }
-        }
+        });
 
-        drawLinkList(guiGraphics, lockedLinks, COLOR_LINK_LOCKED);
-        drawLinkList(guiGraphics, availableLinks, COLOR_LINK_AVAILABLE);
-        drawLinkList(guiGraphics, completedLinks, COLOR_LINK_COMPLETED);
+        buildLinkList(quads, lockedLinks, COLOR_LINK_LOCKED);
+        buildLinkList(quads, availableLinks, COLOR_LINK_AVAILABLE);
+        buildLinkList(quads, completedLinks, COLOR_LINK_COMPLETED);
     }
 
     // --- DRAWING METHODS ---
 
-    private void drawLinkList(GuiGraphics guiGraphics, List<NodeLink> linkList, int color) {
+    private void buildLinkList(QuadBatch quads, List<NodeLink> linkList, int color) {
         for (NodeLink link : linkList) {
             ProgressionNode source = nodeMap.get(link.sourceId());
             ProgressionNode target = nodeMap.get(link.targetId());
             if (source == null || target == null) continue;
 
             if (source.gridX() == target.gridX() || source.gridY() == target.gridY()) {
-                drawStraightLine(guiGraphics, source, target, color);
+                buildStraightLine(quads, source, target, color);
             } else {
-                drawElbowConnection(guiGraphics, source, target, color);
+                buildElbowConnection(quads, source, target, color);
             }
         }
     }
 
     private void drawNodes(GuiGraphics guiGraphics) {
-        for (ProgressionNode node : nodes) {
-            Vector2i nodePos = getScreenPosForNode(node);
-            int nodeDiameter = (int) (BASE_NODE_DIAMETER * this.zoom);
-            int iconDiameter = (int) (BASE_ICON_DIAMETER * this.zoom);
-
-            if (nodePos.x + nodeDiameter / 2 < 0 || nodePos.x - nodeDiameter / 2 > this.width ||
-                    nodePos.y + nodeDiameter / 2 < 0 || nodePos.y - nodeDiameter / 2 > this.height) {
-                continue;
-            }
+        queryVisible(this.nodeGrid, index -> drawNode(guiGraphics, this.nodes.get(index)));
+    }
 
-            int nodeScreenX = nodePos.x - nodeDiameter / 2;
-            int nodeScreenY = nodePos.y - nodeDiameter / 2;
+    private void drawNode(GuiGraphics guiGraphics, ProgressionNode node) {
+        Vector2i nodePos = getScreenPosForNode(node);
+        int nodeDiameter = (int) (BASE_NODE_DIAMETER * this.zoom);
+        int iconDiameter = (int) (BASE_ICON_DIAMETER * this.zoom);
 
-            ResourceLocation iconTexture = ResourceLocation.fromNamespaceAndPath(Arffornia.MODID, "textures/gui/icons/" + node.iconType() + ".png");
-            ResourceLocation backgroundTexture;
-            boolean shouldAnimate = false;
+        if (nodePos.x + nodeDiameter / 2 < 0 || nodePos.x - nodeDiameter / 2 > this.width ||
+                nodePos.y + nodeDiameter / 2 < 0 || nodePos.y - nodeDiameter / 2 > this.height) {
+            return;
+        }
 
-            if (currentTargetId != null && currentTargetId.equals(node.id())) {
-                backgroundTexture = TEX_NODE_TARGET;
-                shouldAnimate = true;
-            } else if (completedMilestones.contains(node.id())) {
-                backgroundTexture = TEX_NODE_COMPLETED;
-            } else if (availableMilestones.contains(node.id())) {
-                backgroundTexture = TEX_NODE_AVAILABLE;
-            } else {
-                backgroundTexture = TEX_NODE_LOCKED;
-            }
+        int nodeScreenX = nodePos.x - nodeDiameter / 2;
+        int nodeScreenY = nodePos.y - nodeDiameter / 2;
 
-            if (shouldAnimate) {
-                guiGraphics.pose().pushPose();
-                guiGraphics.pose().translate(nodePos.x(), nodePos.y(), 0);
-                guiGraphics.pose().mulPose(Axis.ZP.rotationDegrees(this.rotationAngle));
-                guiGraphics.pose().translate(-nodeDiameter / 2.0, -nodeDiameter / 2.0, 0);
+        ResourceLocation iconTexture = ResourceLocation.fromNamespaceAndPath(Arffornia.MODID, "textures/gui/icons/" + node.iconType() + ".png");
+        ResourceLocation backgroundTexture;
+        boolean shouldAnimate = false;
 
-                guiGraphics.blit(backgroundTexture, 0, 0, 0, 0, nodeDiameter, nodeDiameter, nodeDiameter, nodeDiameter);
-                guiGraphics.blit(iconTexture, (nodeDiameter - iconDiameter) / 2, (nodeDiameter - iconDiameter) / 2, 0, 0, iconDiameter, iconDiameter, iconDiameter, iconDiameter);
+        if (currentTargetId != null && currentTargetId.equals(node.id())) {
+            backgroundTexture = TEX_NODE_TARGET;
+            shouldAnimate = true;
+        } else if (completedMilestones.contains(node.id())) {
+            backgroundTexture = TEX_NODE_COMPLETED;
+        } else if (availableMilestones.contains(node.id())) {
+            backgroundTexture = TEX_NODE_AVAILABLE;
+        } else {
+            backgroundTexture = TEX_NODE_LOCKED;
+        }
 
-                guiGraphics.pose().popPose();
-            } else {
-                guiGraphics.blit(backgroundTexture, nodeScreenX, nodeScreenY, 0, 0, nodeDiameter, nodeDiameter, nodeDiameter, nodeDiameter);
-                guiGraphics.blit(iconTexture, nodeScreenX + (nodeDiameter - iconDiameter) / 2, nodeScreenY + (nodeDiameter - iconDiameter) / 2, 0, 0, iconDiameter, iconDiameter, iconDiameter, iconDiameter);
-            }
+        if (shouldAnimate) {
+            guiGraphics.pose().pushPose();
+            guiGraphics.pose().translate(nodePos.x(), nodePos.y(), 0);
+            guiGraphics.pose().mulPose(Axis.ZP.rotationDegrees(this.rotationAngle));
+            guiGraphics.pose().translate(-nodeDiameter / 2.0, -nodeDiameter / 2.0, 0);
+
+            guiGraphics.blit(backgroundTexture, 0, 0, 0, 0, nodeDiameter, nodeDiameter, nodeDiameter, nodeDiameter);
+            guiGraphics.blit(iconTexture, (nodeDiameter - iconDiameter) / 2, (nodeDiameter - iconDiameter) / 2, 0, 0, iconDiameter, iconDiameter, iconDiameter, iconDiameter);
+
+            guiGraphics.pose().popPose();
+        } else {
+            guiGraphics.blit(backgroundTexture, nodeScreenX, nodeScreenY, 0, 0, nodeDiameter, nodeDiameter, nodeDiameter, nodeDiameter);
+            guiGraphics.blit(iconTexture, nodeScreenX + (nodeDiameter - iconDiameter) / 2, nodeScreenY + (nodeDiameter - iconDiameter) / 2, 0, 0, iconDiameter, iconDiameter, iconDiameter, iconDiameter);
         }
     }
 
-    private void drawElbowConnection(GuiGraphics guiGraphics, ProgressionNode source, ProgressionNode target, int color) {
+    private void buildElbowConnection(QuadBatch quads, ProgressionNode source, ProgressionNode target, int color) {
         Vector2i start = getScreenPosForNode(source);
         Vector2i end = getScreenPosForNode(target);
         int lineThickness = (int) Math.max(1, BASE_LINE_THICKNESS * this.zoom);
@@ -390,36 +516,39 @@ public class ProgressionGraphScreen extends Screen {
         Vector2i elbow1 = new Vector2i(midX, start.y);
         Vector2i elbow2 = new Vector2i(midX, end.y);
 
-        drawThickLine(guiGraphics, start, elbow1, lineThickness, color);
-        drawThickLine(guiGraphics, elbow1, elbow2, lineThickness, color);
-        drawThickLine(guiGraphics, elbow2, end, lineThickness, color);
+        addVisibleSegment(quads, start, elbow1, lineThickness, color);
+        addVisibleSegment(quads, elbow1, elbow2, lineThickness, color);
+        addVisibleSegment(quads, elbow2, end, lineThickness, color);
     }
 
-    private void drawStraightLine(GuiGraphics guiGraphics, ProgressionNode source, ProgressionNode target, int color) {
+    private void buildStraightLine(QuadBatch quads, ProgressionNode source, ProgressionNode target, int color) {
         Vector2i start = getScreenPosForNode(source);
         Vector2i end = getScreenPosForNode(target);
         int lineThickness = (int) Math.max(1, BASE_LINE_THICKNESS * this.zoom);
-        drawThickLine(guiGraphics, start, end, lineThickness, color);
-    }
-
-    private void drawThickLine(GuiGraphics guiGraphics, Vector2i p1, Vector2i p2, int thickness, int color) {
-        int x1 = p1.x, y1 = p1.y, x2 = p2.x, y2 = p2.y;
-        int dx = Math.abs(x2 - x1), dy = Math.abs(y2 - y1);
-        int sx = x1 < x2 ? 1 : -1, sy = y1 < y2 ? 1 : -1;
-        int err = dx - dy;
-        while (true) {
-            guiGraphics.fill(x1 - thickness / 2, y1 - thickness / 2, x1 + thickness / 2 + thickness % 2, y1 + thickness / 2 + thickness % 2, color);
-            if (x1 == x2 && y1 == y2) break;
-            int e2 = 2 * err;
-            if (e2 > -dy) {
-                err -= dy;
-                x1 += sx;
-            }
-            if (e2 < dx) {
-                err += dx;
-                y1 += sy;
-            }
+        addVisibleSegment(quads, start, end, lineThickness, color);
+    }
+
+    /**
+     * Adds a line segment only if its bounds overlap the screen, as links that cross the view often have off-screen segments.
+     */
+    private void addVisibleSegment(QuadBatch quads, Vector2i p1, Vector2i p2, int thickness, int color) {
+        if (Math.max(p1.x, p2.x) + thickness < 0 || Math.min(p1.x, p2.x) - thickness > this.width ||
+                Math.max(p1.y, p2.y) + thickness < 0 || Math.min(p1.y, p2.y) - thickness > this.height) {
+            return;
         }
+        addThickSegment(quads, p1, p2, thickness, color);
+    }
+
+    /**
+     * Adds a thick axis-aligned segment as a single rectangle.
+     * Links only have horizontal and vertical segments, so this covers the same pixels as stamping a square
+     * of the line thickness at every point of the segment.
+     */
+    private void addThickSegment(QuadBatch quads, Vector2i p1, Vector2i p2, int thickness, int color) {
+        int half = thickness / 2;
+        int extra = thickness % 2;
+        quads.add(Math.min(p1.x, p2.x) - half, Math.min(p1.y, p2.y) - half,
+                Math.max(p1.x, p2.x) + half + extra, Math.max(p1.y, p2.y) + half + extra, color);
     }
 
     private void drawInfoPanel(GuiGraphics guiGraphics, ProgressionNode node) {
@@ -530,20 +659,13 @@ public class ProgressionGraphScreen extends Screen {
             double mouseWorldX = (mouseX + this.cameraX) / this.zoom;
             double mouseWorldY = (mouseY + this.cameraY) / this.zoom;
 
-            for (ProgressionNode node : nodes) {
-                double nodeWorldX = node.gridX() * BASE_GRID_CELL_SPACING;
-                double nodeWorldY = node.gridY() * BASE_GRID_CELL_SPACING;
-
-                double dist = Math.sqrt(Math.pow(nodeWorldX - mouseWorldX, 2) + Math.pow(nodeWorldY - mouseWorldY, 2));
+            ProgressionNode clickedNode = findNodeAt(mouseWorldX, mouseWorldY, nodeCheckRadius);
+            if (clickedNode != null) {
+                this.selectedNode = clickedNode;
+                this.isDragging = false;
+                aNodeWasClicked = true;
 
-                if (dist <= nodeCheckRadius) {
-                    this.selectedNode = node;
-                    this.isDragging = false;
-                    aNodeWasClicked = true;
-
-                    fetchAndApplyNodeDetails(node.id());
-                    break;
-                }
+                fetchAndApplyNodeDetails(clickedNode.id());
             }
 
             if (!aNodeWasClicked) {
@@ -559,29 +681,39 @@ public class ProgressionGraphScreen extends Screen {
         return false;
     }
 
+    /**
+     * Finds the node under a world position, using the node spatial index.
+     *
+     * @return The first node within the radius of the position, or null if there is none.
+     */
+    private @Nullable ProgressionNode findNodeAt(double worldX, double worldY, double radius) {
+        ProgressionNode[] found = new ProgressionNode[1];
+        this.nodeGrid.query(worldX, worldY, worldX, worldY, index -> {
+            ProgressionNode node = this.nodes.get(index);
+            if (found[0] != null) return;
+
+            double dist = Math.sqrt(Math.pow(node.gridX() * BASE_GRID_CELL_SPACING - worldX, 2) + Math.pow(node.gridY() * BASE_GRID_CELL_SPACING - worldY, 2));
+            if (dist <= radius) {
+                found[0] = node;
+            }
+        });
+        return found[0];
+    }
+
     private void fetchAndApplyNodeDetails(int nodeId) {
         this.status = LoadingStatus.LOADING_DETAILS;
         refreshWidgets();
 
-        ArfforniaApiService.getInstance().fetchMilestoneDetails(nodeId).whenComplete((details, error) -> {
+        MilestoneDetailsCache.fetch(nodeId).whenComplete((details, error) -> {
             Minecraft.getInstance().execute(() -> {
-                if (error != null) {
+                if (error != null || details == null) {
                     this.status = LoadingStatus.FAILED;
-                    error.printStackTrace();
+                    Arffornia.LOGGER.error("Failed to fetch details of milestone {}", nodeId, error);
                     return;
                 }
 
                 this.selectedNodeDetails = details;
-
-                this.nodes = this.nodes.stream()
-                        .map(n -> (n.id() == nodeId) ? new ProgressionNode(n.id(), details.name(), details.description(), n.gridX(), n.gridY(), n.iconType(), n.stageNumber()) : n)
-                        .collect(Collectors.toList());
-
-                this.nodeMap = this.nodes.stream().collect(Collectors.toMap(ProgressionNode::id, node -> node));
-
-                if (this.selectedNode != null && this.selectedNode.id() == nodeId) {
-                    this.selectedNode = this.nodeMap.get(nodeId);
-                }
+                applyNodeDetails(nodeId, details);
 
                 updateClientData();
 
@@ -590,6 +722,54 @@ public class ProgressionGraphScreen extends Screen {
                 updateTargetButtonState();
             });
         });
+
+        prefetchNeighbours(nodeId);
+    }
+
+    /**
+     * Replaces a node with a copy holding its fetched name and description.
+     * The node keeps its position in {@link #nodes}, so the spatial index stays valid.
+     */
+    private void applyNodeDetails(int nodeId, ArfforniaApiDtos.MilestoneDetails details) {
+        int index = this.milestoneGraph.indexOf(nodeId);
+        if (index == -1) return;
+
+        ProgressionNode n = this.nodes.get(index);
+        ProgressionNode updated = new ProgressionNode(n.id(), details.name(), details.description(), n.gridX(), n.gridY(), n.iconType(), n.stageNumber());
+        this.nodes.set(index, updated);
+        this.nodeMap.put(nodeId, updated);
+
+        if (this.selectedNode != null && this.selectedNode.id() == nodeId) {
+            this.selectedNode = updated;
+        }
+    }
+
+    /**
+     * Prefetches the details of the direct prerequisites and unlocks of a milestone, which are likely to be clicked next.
+     */
+    private void prefetchNeighbours(int nodeId) {
+        int index = this.milestoneGraph.indexOf(nodeId);
+        if (index == -1) return;
+
+        for (int parent : this.milestoneGraph.parentsOf(index)) {
+            MilestoneDetailsCache.prefetch(this.milestoneGraph.idAt(parent));
+        }
+        for (int child : this.milestoneGraph.childrenOf(index)) {
+            MilestoneDetailsCache.prefetch(this.milestoneGraph.idAt(child));
+        }
+    }
+
+    @Override
+    public void mouseMoved(double mouseX, double mouseY) {
+        super.mouseMoved(mouseX, mouseY);
+
+        if (this.status == LoadingStatus.LOADING_GRAPH || this.status == LoadingStatus.FAILED) return;
+
+        ProgressionNode hovered = findNodeAt((mouseX + this.cameraX) / this.zoom, (mouseY + this.cameraY) / this.zoom, BASE_NODE_DIAMETER / 2.0);
+        if (hovered != null && hovered.id() != this.lastHoveredNodeId) {
+            this.lastHoveredNodeId = hovered.id();
+            MilestoneDetailsCache.prefetch(hovered.id());
+        }
     }
 
     // --- INTERACTION HANDLERS ---
@@ -716,16 +896,10 @@ public class ProgressionGraphScreen extends Screen {
         }
 
 
-        List<Integer> prerequisites = this.links.stream()
-                .filter(link -> link.targetId() == this.selectedNode.id())
-                .map(NodeLink::sourceId)
-                .toList();
-
-        if (!prerequisites.isEmpty()) {
-            boolean hasCompletedPrerequisite = prerequisites.stream()
-                    .anyMatch(prereqId -> this.completedMilestones.contains(prereqId));
+        int graphIndex = this.milestoneGraph.indexOf(this.selectedNode.id());
 
-            if (!hasCompletedPrerequisite) {
+        if (graphIndex != -1 && this.milestoneGraph.parentsOf(graphIndex).length > 0) {
+            if (!hasCompletedParent(graphIndex)) {
                 this.setTargetButton.setMessage(Component.literal("Prerequisite Locked"));
                 this.setTargetButton.active = false;
                 return;
@@ -0,0 +1,70 @@
+package fr.thegostsniperfr.arffornia.client.screen.graph;
+
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Client-side LRU cache of milestone details, kept across openings of the progression graph.
+ * Concurrent fetches of the same milestone are already shared by {@link ArfforniaApiService}.
+ */
+public class MilestoneDetailsCache {
+    private static final int MAX_SIZE = 256;
+
+    private static final Map<Integer, ArfforniaApiDtos.MilestoneDetails> ENTRIES = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ArfforniaApiDtos.MilestoneDetails> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private MilestoneDetailsCache() {
+    }
+
+    /**
+     * @return The cached details of a milestone, or null if they were not fetched yet.
+     */
+    @Nullable
+    public static synchronized ArfforniaApiDtos.MilestoneDetails get(int milestoneId) {
+        return ENTRIES.get(milestoneId);
+    }
+
+    /**
+     * Returns the details of a milestone from the cache, or fetches and caches them.
+     *
+     * @param milestoneId The ID of the milestone.
+     * @return A future completed with the details, or null if the fetch failed.
+     */
+    public static CompletableFuture<ArfforniaApiDtos.MilestoneDetails> fetch(int milestoneId) {
+        ArfforniaApiDtos.MilestoneDetails cached = get(milestoneId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return ArfforniaApiService.getInstance().fetchMilestoneDetails(milestoneId).thenApply(details -> {
+            if (details != null) {
+                synchronized (MilestoneDetailsCache.class) {
+                    ENTRIES.put(milestoneId, details);
+                }
+            }
+            return details;
+        });
+    }
+
+    /**
+     * Starts fetching the details of a milestone in the background if they are not cached.
+     */
+    public static void prefetch(int milestoneId) {
+        if (get(milestoneId) == null) {
+            fetch(milestoneId);
+        }
+    }
+
+    public static synchronized void clear() {
+        ENTRIES.clear();
+    }
+}
@@ -0,0 +1,116 @@
+package fr.thegostsniperfr.arffornia.client.screen.graph;
+
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The direct parent/child relations between milestones, derived once from the API closure table.
+ * <p>
+ * The closure table holds every ancestor/descendant pair, which grows quadratically with the depth of the graph.
+ * Its transitive reduction keeps only the pairs with no milestone in between, i.e. the direct prerequisites.
+ * Milestones are stored by a dense index, with their relations as primitive int arrays.
+ * The progression graph is expected to be acyclic.
+ */
+public class MilestoneGraph {
+    private static final int[] NO_EDGES = new int[0];
+
+    private final int[] ids;
+    private final Int2IntOpenHashMap indexById = new Int2IntOpenHashMap();
+    private final int[][] parents;
+    private final int[][] children;
+    private final int edgeCount;
+
+    /**
+     * @param milestoneIds The IDs of all milestones.
+     * @param closure      The ancestor/descendant pairs of the closure table.
+     */
+    public MilestoneGraph(List<Integer> milestoneIds, List<ArfforniaApiDtos.ApiMilestoneClosure> closure) {
+        int size = milestoneIds.size();
+        this.ids = new int[size];
+        this.indexById.defaultReturnValue(-1);
+        for (int i = 0; i < size; i++) {
+            this.ids[i] = milestoneIds.get(i);
+            this.indexById.put(this.ids[i], i);
+        }
+
+        BitSet[] descendants = new BitSet[size];
+        for (int i = 0; i < size; i++) {
+            descendants[i] = new BitSet(size);
+        }
+        for (ArfforniaApiDtos.ApiMilestoneClosure pair : closure) {
+            int ancestor = indexById.get(pair.milestoneId());
+            int descendant = indexById.get(pair.descendantId());
+            if (ancestor != -1 && descendant != -1 && ancestor != descendant) {
+                descendants[ancestor].set(descendant);
+            }
+        }
+
+        // A descendant is a direct child unless it is also a descendant of another descendant.
+        IntArrayList[] parentLists = new IntArrayList[size];
+        this.children = new int[size][];
+        int edges = 0;
+        BitSet direct = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            direct.clear();
+            direct.or(descendants[i]);
+            for (int d = descendants[i].nextSetBit(0); d >= 0; d = descendants[i].nextSetBit(d + 1)) {
+                direct.andNot(descendants[d]);
+            }
+
+            this.children[i] = direct.isEmpty() ? NO_EDGES : direct.stream().toArray();
+            for (int child : this.children[i]) {
+                if (parentLists[child] == null) {
+                    parentLists[child] = new IntArrayList(2);
+                }
+                parentLists[child].add(i);
+            }
+            edges += this.children[i].length;
+        }
+
+        this.parents = new int[size][];
+        for (int i = 0; i < size; i++) {
+            this.parents[i] = parentLists[i] == null ? NO_EDGES : parentLists[i].toIntArray();
+        }
+        this.edgeCount = edges;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /**
+     * @return The dense index of a milestone, or -1 if it is unknown.
+     */
+    public int indexOf(int milestoneId) {
+        return indexById.get(milestoneId);
+    }
+
+    public int idAt(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @return The indexes of the direct prerequisites of a milestone. Must not be modified.
+     */
+    public int[] parentsOf(int index) {
+        return parents[index];
+    }
+
+    /**
+     * @return The indexes of the milestones directly unlocked by a milestone. Must not be modified.
+     */
+    public int[] childrenOf(int index) {
+        return children[index];
+    }
+
+    /**
+     * @return The number of direct parent/child relations.
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+}
@@ -0,0 +1,63 @@
+package fr.thegostsniperfr.arffornia.client.screen.graph;
+
+import com.mojang.blaze3d.vertex.VertexConsumer;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import net.minecraft.client.gui.GuiGraphics;
+import net.minecraft.client.renderer.RenderType;
+import org.joml.Matrix4f;
+
+/**
+ * A list of solid-colored screen rectangles, kept between frames and drawn in a single batch.
+ * <p>
+ * {@link GuiGraphics#fill} flushes its buffer after every rectangle when called outside a managed draw,
+ * so drawing thousands of grid lines and link segments with it costs as many draw calls.
+ * All rectangles of a batch are instead written to one {@link RenderType#gui()} buffer, flushed once.
+ */
+public class QuadBatch {
+    private static final int INTS_PER_QUAD = 5;
+
+    private final IntArrayList quads = new IntArrayList();
+
+    public void clear() {
+        quads.clear();
+    }
+
+    /**
+     * Adds a rectangle, with the same bounds as {@link GuiGraphics#fill(int, int, int, int, int)}.
+     */
+    public void add(int x1, int y1, int x2, int y2, int color) {
+        quads.add(Math.min(x1, x2));
+        quads.add(Math.min(y1, y2));
+        quads.add(Math.max(x1, x2));
+        quads.add(Math.max(y1, y2));
+        quads.add(color);
+    }
+
+    public int size() {
+        return quads.size() / INTS_PER_QUAD;
+    }
+
+    public void draw(GuiGraphics guiGraphics) {
+        if (quads.isEmpty()) {
+            return;
+        }
+
+        VertexConsumer consumer = guiGraphics.bufferSource().getBuffer(RenderType.gui());
+        Matrix4f pose = guiGraphics.pose().last().pose();
+
+        for (int i = 0; i < quads.size(); i += INTS_PER_QUAD) {
+            float minX = quads.getInt(i);
+            float minY = quads.getInt(i + 1);
+            float maxX = quads.getInt(i + 2);
+            float maxY = quads.getInt(i + 3);
+            int color = quads.getInt(i + 4);
+
+            consumer.addVertex(pose, minX, minY, 0).setColor(color);
+            consumer.addVertex(pose, minX, maxY, 0).setColor(color);
+            consumer.addVertex(pose, maxX, maxY, 0).setColor(color);
+            consumer.addVertex(pose, maxX, minY, 0).setColor(color);
+        }
+
+        guiGraphics.flush();
+    }
+}
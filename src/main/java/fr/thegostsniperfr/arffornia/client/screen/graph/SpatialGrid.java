@@ -0,0 +1,91 @@
+package fr.thegostsniperfr.arffornia.client.screen.graph;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A uniform grid over world coordinates, indexing elements by their bounding box.
+ * Used by the progression graph to only visit the nodes and links inside the visible area.
+ * <p>
+ * Elements are identified by an index, e.g. their position in a list. An element spanning several cells
+ * is reported only once per query.
+ */
+public class SpatialGrid {
+    private final double cellSize;
+    private final Long2ObjectOpenHashMap<IntArrayList> cells = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The query in which each element was last reported, to skip duplicates without allocating a set.
+     */
+    private int[] lastSeen;
+    private int queryId = 0;
+
+    /**
+     * @param cellSize     The size of a cell in world units.
+     * @param elementCount The number of elements that will be inserted, indexed from 0.
+     */
+    public SpatialGrid(double cellSize, int elementCount) {
+        this.cellSize = cellSize;
+        this.lastSeen = new int[elementCount];
+    }
+
+    /**
+     * Adds an element to every cell its bounding box overlaps.
+     */
+    public void insert(int index, double minX, double minY, double maxX, double maxY) {
+        if (index >= lastSeen.length) {
+            int[] grown = new int[Math.max(index + 1, lastSeen.length * 2)];
+            System.arraycopy(lastSeen, 0, grown, 0, lastSeen.length);
+            lastSeen = grown;
+        }
+
+        int minCellX = cell(minX), maxCellX = cell(maxX);
+        int minCellY = cell(minY), maxCellY = cell(maxY);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                cells.computeIfAbsent(key(cellX, cellY), k -> new IntArrayList()).add(index);
+            }
+        }
+    }
+
+    /**
+     * Reports each element whose cells overlap the given rectangle once.
+     * Elements near the rectangle may be reported too, callers still check their exact bounds if needed.
+     */
+    public void query(double minX, double minY, double maxX, double maxY, IntConsumer consumer) {
+        if (++queryId == 0) {
+            Arrays.fill(lastSeen, 0);
+            queryId = 1;
+        }
+
+        int minCellX = cell(minX), maxCellX = cell(maxX);
+        int minCellY = cell(minY), maxCellY = cell(maxY);
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                IntArrayList elements = cells.get(key(cellX, cellY));
+                if (elements == null) {
+                    continue;
+                }
+
+                for (int i = 0; i < elements.size(); i++) {
+                    int index = elements.getInt(i);
+                    if (lastSeen[index] != queryId) {
+                        lastSeen[index] = queryId;
+                        consumer.accept(index);
+                    }
+                }
+            }
+        }
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / cellSize);
+    }
+
+    private static long key(int cellX, int cellY) {
+        return ((long) cellX << 32) | (cellY & 0xFFFFFFFFL);
+    }
+}
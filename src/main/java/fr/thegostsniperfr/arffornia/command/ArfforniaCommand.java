@@ -2,6 +2,8 @@ package fr.thegostsniperfr.arffornia.command;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import fr.thegostsniperfr.arffornia.command.management.ApiCommand;
+import fr.thegostsniperfr.arffornia.command.management.MigrationCommand;
 import fr.thegostsniperfr.arffornia.command.management.ProgressionCommand;
 import fr.thegostsniperfr.arffornia.command.shop.ShopCommand;
 import fr.thegostsniperfr.arffornia.shop.RewardHandler;
@@ -16,6 +18,8 @@ public class ArfforniaCommand {
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher, RewardHandler rewardHandler) {
         LiteralArgumentBuilder<CommandSourceStack> root = Commands.literal("arffornia")
                 .then(ProgressionCommand.register())
+                .then(ApiCommand.register())
+                .then(MigrationCommand.register())
                 .then(ShopCommand.register(rewardHandler));
 
         dispatcher.register(root);
@@ -3,6 +3,7 @@ package fr.thegostsniperfr.arffornia.command.management;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.api.service.MutationQueue;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.EntityArgument;
@@ -21,10 +22,12 @@ public class AddMilestoneCommand {
                                     context.getSource().sendSystemMessage(Component.literal("Adding milestone " + milestoneId + " to " + target.getName().getString() + "..."));
 
                                     ArfforniaApiService.getInstance().addMilestone(target.getUUID(), milestoneId)
-                                            .thenAccept(success -> {
-                                                if (success) {
+                                            .thenAccept(result -> {
+                                                if (result == MutationQueue.Result.DELIVERED) {
                                                     context.getSource().sendSystemMessage(Component.literal("§aSuccessfully added milestone."));
                                                     // TODO: Send packet to player to update GUI
+                                                } else if (result == MutationQueue.Result.QUEUED) {
+                                                    context.getSource().sendSystemMessage(Component.literal("§eAPI is unreachable. The milestone was queued and will be added once it is back."));
                                                 } else {
                                                     context.getSource().sendSystemMessage(Component.literal("§cFailed to add milestone. Check server logs."));
                                                 }
@@ -92,43 +92,15 @@ public class AddUnlockCommand {
 
     /**
      * Finds the best crafting-style recipe for a given result item from a provided collection of recipes.
-     * It iterates through all recipes, prioritizing shaped recipes to preserve the grid layout.
+     * Shaped recipes are preferred to preserve the grid layout. The lookup goes through a {@link fr.thegostsniperfr.arffornia.recipe.CraftingRecipeIndex},
+     * which for the original recipes is only built once per reload.
      * @param allRecipes A collection of all recipes to search through.
      * @param result The ItemStack that the recipe should produce.
      * @param level The current level, used to get the RegistryAccess.
      * @return An Optional containing the best matching RecipeHolder, or empty if none is found.
      */
     public static Optional<RecipeHolder<?>> findBestCraftingRecipeFor(Collection<RecipeHolder<?>> allRecipes, ItemStack result, Level level) {
-        RegistryAccess registryAccess = level.registryAccess();
-
-        return allRecipes.stream()
-                .filter(recipe -> !recipe.id().getNamespace().equals("arffornia"))
-                .filter(recipe -> {
-                    ItemStack recipeResult = recipe.value().getResultItem(registryAccess);
-                    if (recipeResult == null || recipeResult.isEmpty()) return false;
-                    if (!ItemStack.isSameItem(recipeResult, result)) return false;
-
-                    if (recipe.value() instanceof ShapedRecipe || recipe.value() instanceof ShapelessRecipe) {
-                        return true;
-                    }
-
-                    String typeId = recipe.value().getType().toString();
-                    String className = recipe.value().getClass().getSimpleName();
-
-                    if (typeId.contains("infusion") || className.contains("InfusionRecipe")) {
-                        return true;
-                    }
-
-                    return false;
-                })
-                .sorted((r1, r2) -> {
-                    boolean r1Shape = r1.value() instanceof ShapedRecipe;
-                    boolean r2Shape = r2.value() instanceof ShapedRecipe;
-                    if (r1Shape && !r2Shape) return -1;
-                    if (!r1Shape && r2Shape) return 1;
-                    return 0;
-                })
-                .findFirst();
+        return RecipeBanManager.getCraftingRecipeIndex(allRecipes, level.registryAccess()).findBest(result);
     }
 
     /**
@@ -0,0 +1,84 @@
+package fr.thegostsniperfr.arffornia.command.management;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import fr.thegostsniperfr.arffornia.api.service.ApiGateway;
+import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.api.service.CircuitBreaker;
+import fr.thegostsniperfr.arffornia.api.service.MutationQueue;
+import fr.thegostsniperfr.arffornia.api.service.ProgressionDataCache;
+import fr.thegostsniperfr.arffornia.util.Permissions;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.neoforged.neoforge.server.permission.PermissionAPI;
+
+/**
+ * Handles the '/arffornia api ...' commands, used to monitor the connection to the Arffornia web backend.
+ */
+public class ApiCommand {
+
+    public static LiteralArgumentBuilder<CommandSourceStack> register() {
+        return Commands.literal("api")
+                .requires(source -> source.hasPermission(2) || (source.getPlayer() != null && PermissionAPI.getPermission(source.getPlayer(), Permissions.MANAGE_PROGRESSION)))
+                .then(Commands.literal("cache")
+                        .executes(context -> {
+                            ProgressionDataCache cache = ArfforniaApiService.getInstance().getProgressionCache();
+                            context.getSource().sendSystemMessage(Component.literal(String.format(
+                                    "§eProgression cache: §a%d §eentries, §a%d §ehits, §c%d §emisses (hit rate §b%.1f%%§e)",
+                                    cache.size(), cache.getHits(), cache.getMisses(), cache.getHitRate() * 100.0)));
+                            return 1;
+                        })
+                        .then(Commands.literal("clear")
+                                .executes(context -> {
+                                    ArfforniaApiService.getInstance().getProgressionCache().invalidateAll();
+                                    context.getSource().sendSystemMessage(Component.literal("§aProgression cache cleared."));
+                                    return 1;
+                                })
+                        )
+                )
+                .then(Commands.literal("http")
+                        .executes(context -> {
+                            ApiGateway.Status status = ArfforniaApiService.getInstance().getGateway().getStatus();
+                            CircuitBreaker.Status breaker = status.breaker();
+                            String state = switch (breaker.state()) {
+                                case CLOSED -> "§aclosed";
+                                case HALF_OPEN -> "§6half-open";
+                                case OPEN -> String.format("§copen §e(retry in §b%ds§e)", breaker.retryInMillis() / 1000);
+                            };
+                            context.getSource().sendSystemMessage(Component.literal(String.format(
+                                    "§eCircuit breaker: %s§e, failure rate §b%.0f%% §eover §a%d §ecalls",
+                                    state, breaker.failureRate() * 100.0, breaker.recordedCalls())));
+                            context.getSource().sendSystemMessage(Component.literal(String.format(
+                                    "§eIn flight: reads §a%d§e/§a%d§e, writes §a%d§e/§a%d§e. §c%d §erejected, §c%d §etimed out",
+                                    status.readsInFlight(), status.readLimit(), status.writesInFlight(), status.writeLimit(),
+                                    status.rejected(), status.timeouts())));
+                            return 1;
+                        })
+                )
+                .then(Commands.literal("queue")
+                        .executes(context -> {
+                            MutationQueue.Status status = ArfforniaApiService.getInstance().getMutationQueue().getStatus();
+                            context.getSource().sendSystemMessage(Component.literal(String.format(
+                                    "§eMutation queue: §a%d §epending, lag §b%ds§e, §a%d §edelivered, §c%d §erejected",
+                                    status.depth(), status.lagMillis() / 1000, status.delivered(), status.rejected())));
+                            if (status.authFailed()) {
+                                context.getSource().sendSystemMessage(Component.literal(
+                                        "§cThe API refuses the service credentials. Mutations are held until the client ID and secret are fixed."));
+                            } else if (status.lastError() != null) {
+                                context.getSource().sendSystemMessage(Component.literal(String.format(
+                                        "§eLast error: §c%s §e(%d failed attempt(s))", status.lastError(), status.failedAttempts())));
+                            }
+                            return 1;
+                        })
+                )
+                .then(Commands.literal("token")
+                        .executes(context -> {
+                            long seconds = ArfforniaApiService.getInstance().getServiceTokenManager().getSecondsUntilExpiry();
+                            context.getSource().sendSystemMessage(Component.literal(seconds < 0
+                                    ? "§eService token: §cnone §e(requested on next authenticated call)"
+                                    : String.format("§eService token: §avalid §efor §b%ds", seconds)));
+                            return 1;
+                        })
+                );
+    }
+}
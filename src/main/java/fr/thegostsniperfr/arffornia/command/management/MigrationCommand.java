@@ -0,0 +1,42 @@
+package fr.thegostsniperfr.arffornia.command.management;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.api.service.RecipeMigrationPipeline;
+import fr.thegostsniperfr.arffornia.util.Permissions;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.neoforged.neoforge.server.permission.PermissionAPI;
+
+/**
+ * Handles the '/arffornia migration ...' commands, used to follow the recipe migration to the web backend.
+ */
+public class MigrationCommand {
+
+    public static LiteralArgumentBuilder<CommandSourceStack> register() {
+        return Commands.literal("migration")
+                .requires(source -> source.hasPermission(2) || (source.getPlayer() != null && PermissionAPI.getPermission(source.getPlayer(), Permissions.MANAGE_PROGRESSION)))
+                .then(Commands.literal("status")
+                        .executes(context -> {
+                            RecipeMigrationPipeline.Status status = ArfforniaApiService.getInstance().getMigrationPipeline().getStatus();
+                            CommandSourceStack source = context.getSource();
+
+                            if (status.state() == RecipeMigrationPipeline.State.IDLE) {
+                                source.sendSystemMessage(Component.literal("§eNo recipe migration has run since the server started."));
+                                return 1;
+                            }
+
+                            source.sendSystemMessage(Component.literal(String.format(
+                                    "§eRecipe migration: §b%s §e(%.1fs)", status.state(), status.elapsedMillis() / 1000.0)));
+                            source.sendSystemMessage(Component.literal(String.format(
+                                    "§eItems: §a%d §econverted, §7%d §eskipped, out of §f%d §e(§b%.1f§e/s)",
+                                    status.itemsConverted(), status.itemsSkipped(), status.itemsTotal(), status.conversionRate())));
+                            source.sendSystemMessage(Component.literal(String.format(
+                                    "§eUploads: §a%d §erecipes in §a%d §echunks (§b%.1f§e/s), §c%d §efailed chunks, §6%d §eretries",
+                                    status.recipesUploaded(), status.chunksUploaded(), status.uploadRate(), status.chunksFailed(), status.retries())));
+                            return 1;
+                        })
+                );
+    }
+}
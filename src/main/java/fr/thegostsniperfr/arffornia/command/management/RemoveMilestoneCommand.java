@@ -3,6 +3,7 @@ package fr.thegostsniperfr.arffornia.command.management;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.api.service.MutationQueue;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.commands.arguments.EntityArgument;
@@ -26,10 +27,12 @@ public class RemoveMilestoneCommand {
                                     source.sendSystemMessage(Component.literal("Requesting to remove milestone " + milestoneId + " from " + targetPlayer.getName().getString() + "..."));
 
                                     ArfforniaApiService.getInstance().removeMilestone(targetPlayer.getUUID(), milestoneId)
-                                            .thenAccept(success -> {
-                                                if (success) {
+                                            .thenAccept(result -> {
+                                                if (result == MutationQueue.Result.DELIVERED) {
                                                     source.sendSystemMessage(Component.literal("§aSuccessfully removed milestone."));
                                                     // TODO: Send a network packet to the targetPlayer to notify their client of the change.
+                                                } else if (result == MutationQueue.Result.QUEUED) {
+                                                    source.sendSystemMessage(Component.literal("§eAPI is unreachable. The removal was queued and will be applied once it is back."));
                                                 } else {
                                                     source.sendSystemMessage(Component.literal("§cFailed to remove milestone. Check server logs for details."));
                                                 }
@@ -2,8 +2,12 @@ package fr.thegostsniperfr.arffornia.command.shop;
 
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import fr.thegostsniperfr.arffornia.shop.RewardHandler;
+import fr.thegostsniperfr.arffornia.shop.internal.DatabaseManager;
+import fr.thegostsniperfr.arffornia.util.Permissions;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.Component;
+import net.neoforged.neoforge.server.permission.PermissionAPI;
 
 /**
  * Commands related to the online shop.
@@ -12,6 +16,27 @@ public class ShopCommand {
 
     public static LiteralArgumentBuilder<CommandSourceStack> register(RewardHandler rewardHandler) {
         return Commands.literal("shop")
-                .then(ClaimRewardCommand.register(rewardHandler));
+                .then(ClaimRewardCommand.register(rewardHandler))
+                .then(Commands.literal("status")
+                        .requires(source -> source.hasPermission(2) || (source.getPlayer() != null && PermissionAPI.getPermission(source.getPlayer(), Permissions.CLAIM_REWARD_OTHERS)))
+                        .executes(context -> {
+                            context.getSource().sendSystemMessage(Component.literal(String.format(
+                                    "§eReward queue: §a%d §eoperations pending for §a%d §eplayers",
+                                    rewardHandler.getQueueDepth(), rewardHandler.getBusyPlayers())));
+
+                            DatabaseManager.PoolStats pool = rewardHandler.getPoolStats();
+                            if (pool == null) {
+                                context.getSource().sendSystemMessage(Component.literal("§cDatabase pool: unavailable"));
+                            } else {
+                                context.getSource().sendSystemMessage(Component.literal(String.format(
+                                        "§eDatabase pool: §a%d§e/§a%d §eactive, §a%d §eidle, §a%d §ewaiting",
+                                        pool.active(), pool.maxSize(), pool.idle(), pool.waiting())));
+                                context.getSource().sendSystemMessage(Component.literal(String.format(
+                                        "§eConnection acquire: §a%.2f ms §eavg, §a%.2f ms §emax over §a%d §eacquisitions",
+                                        pool.avgAcquireMillis(), pool.maxAcquireMillis(), pool.acquired())));
+                            }
+                            return 1;
+                        })
+                );
     }
 }
\ No newline at end of file
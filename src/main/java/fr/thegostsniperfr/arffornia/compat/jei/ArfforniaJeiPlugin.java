@@ -21,6 +21,7 @@ import java.util.List;
 @JeiPlugin
 public class ArfforniaJeiPlugin implements IModPlugin {
     public static IJeiRuntime RUNTIME;
+    private static boolean listenerRegistered = false;
 
     @Override
     public ResourceLocation getPluginUid() {
@@ -30,6 +31,27 @@ public class ArfforniaJeiPlugin implements IModPlugin {
     @Override
     public void onRuntimeAvailable(IJeiRuntime jeiRuntime) {
         RUNTIME = jeiRuntime;
+
+        if (!listenerRegistered) {
+            listenerRegistered = true;
+            // Recipes synced by the server after JEI has loaded are added or hidden at runtime.
+            ClientRecipeCache.addListener((added, removed) -> {
+                if (RUNTIME == null) {
+                    return;
+                }
+                if (!removed.isEmpty()) {
+                    RUNTIME.getRecipeManager().hideRecipes(CrafterRecipeCategory.CRAFTER_RECIPE_TYPE, removed);
+                }
+                if (!added.isEmpty()) {
+                    RUNTIME.getRecipeManager().addRecipes(CrafterRecipeCategory.CRAFTER_RECIPE_TYPE, List.copyOf(added));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onRuntimeUnavailable() {
+        RUNTIME = null;
     }
 
     @Override
@@ -6,7 +6,24 @@ public class ApiConfig {
     public static ModConfigSpec.ConfigValue<String> API_BASE_URL;
     public static ModConfigSpec.ConfigValue<String> API_CLIENT_ID;
     public static ModConfigSpec.ConfigValue<String> API_CLIENT_SECRET;
+    public static ModConfigSpec.IntValue SERVICE_TOKEN_LIFETIME_SECONDS;
+    public static ModConfigSpec.IntValue SERVICE_TOKEN_REFRESH_MARGIN_SECONDS;
+    public static ModConfigSpec.IntValue MUTATION_RETRY_MAX_DELAY_SECONDS;
     public static ModConfigSpec.BooleanValue MIGRATE_ON_STARTUP;
+    public static ModConfigSpec.IntValue PROGRESSION_CACHE_TTL_SECONDS;
+    public static ModConfigSpec.IntValue PROGRESSION_CACHE_MAX_SIZE;
+    public static ModConfigSpec.IntValue MIGRATION_WORKER_THREADS;
+    public static ModConfigSpec.IntValue MIGRATION_BATCH_SIZE;
+    public static ModConfigSpec.IntValue MIGRATION_MAX_CONCURRENT_UPLOADS;
+    public static ModConfigSpec.IntValue MIGRATION_MAX_RETRIES;
+    public static ModConfigSpec.IntValue BANNED_RECIPES_REFRESH_SECONDS;
+
+    public static ModConfigSpec.IntValue HTTP_READ_TIMEOUT_SECONDS;
+    public static ModConfigSpec.IntValue HTTP_WRITE_TIMEOUT_SECONDS;
+    public static ModConfigSpec.IntValue HTTP_MAX_CONCURRENT_READS;
+    public static ModConfigSpec.IntValue HTTP_MAX_CONCURRENT_WRITES;
+    public static ModConfigSpec.IntValue CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD;
+    public static ModConfigSpec.IntValue CIRCUIT_BREAKER_OPEN_SECONDS;
 
     public static void register(ModConfigSpec.Builder builder) {
         builder.comment("Configuration for the Arffornia API connection").push("api");
@@ -23,10 +40,77 @@ public class ApiConfig {
                 .comment("The service account Client Secret for API authentication. This should be kept private.")
                 .define("clientSecret", "your-super-secret-key-here");
 
+        SERVICE_TOKEN_LIFETIME_SECONDS = builder
+                .comment("How long, in seconds, a service auth token is considered valid when the API does not say so in 'expires_in'.")
+                .defineInRange("serviceTokenLifetimeSeconds", 3600, 60, 604800);
+
+        SERVICE_TOKEN_REFRESH_MARGIN_SECONDS = builder
+                .comment("How long, in seconds, before its expiry the service auth token is refreshed in the background.")
+                .defineInRange("serviceTokenRefreshMarginSeconds", 120, 0, 3600);
+
+        MUTATION_RETRY_MAX_DELAY_SECONDS = builder
+                .comment("The maximum delay, in seconds, between two attempts to send queued progression and team changes while the API is unreachable.")
+                .defineInRange("mutationRetryMaxDelaySeconds", 60, 1, 3600);
+
         MIGRATE_ON_STARTUP = builder
                 .comment("If true, the mod will attempt to migrate vanilla recipes for existing items on the next server startup. This should be manually set to false after a successful run.")
                 .define("migrateOnStartup", false);
 
+        PROGRESSION_CACHE_TTL_SECONDS = builder
+                .comment("How long, in seconds, progression data fetched from the API is reused before being fetched again. Set to 0 to disable the cache.")
+                .defineInRange("progressionCacheTtlSeconds", 30, 0, 3600);
+
+        PROGRESSION_CACHE_MAX_SIZE = builder
+                .comment("The maximum number of progressions kept in the progression data cache.")
+                .defineInRange("progressionCacheMaxSize", 256, 1, 10000);
+
+        MIGRATION_WORKER_THREADS = builder
+                .comment("The number of threads used to convert recipes during a recipe migration.")
+                .defineInRange("migrationWorkerThreads", 4, 1, 32);
+
+        MIGRATION_BATCH_SIZE = builder
+                .comment("The number of recipes sent to the API in each migration request.")
+                .defineInRange("migrationBatchSize", 100, 1, 5000);
+
+        MIGRATION_MAX_CONCURRENT_UPLOADS = builder
+                .comment("The maximum number of migration requests sent to the API at the same time.")
+                .defineInRange("migrationMaxConcurrentUploads", 2, 1, 16);
+
+        MIGRATION_MAX_RETRIES = builder
+                .comment("How many times a failed migration request is retried before its recipes are given up on.")
+                .defineInRange("migrationMaxRetries", 3, 0, 10);
+
+        BANNED_RECIPES_REFRESH_SECONDS = builder
+                .comment("How often, in seconds, the banned recipe list is fetched from the API. Data packs are only reloaded when it changed. 0 fetches it once on server start.")
+                .defineInRange("bannedRecipesRefreshSeconds", 300, 0, 86400);
+
+        builder.comment("Limits applied to every request sent to the API, so a slow or failing API cannot slow down the server.").push("http");
+
+        HTTP_READ_TIMEOUT_SECONDS = builder
+                .comment("How long, in seconds, a request reading data from the API may take before it is abandoned.")
+                .defineInRange("readTimeoutSeconds", 10, 1, 300);
+
+        HTTP_WRITE_TIMEOUT_SECONDS = builder
+                .comment("How long, in seconds, a request changing data on the API may take before it is abandoned.")
+                .defineInRange("writeTimeoutSeconds", 15, 1, 300);
+
+        HTTP_MAX_CONCURRENT_READS = builder
+                .comment("The maximum number of reading requests sent to the API at the same time. Further requests fail immediately.")
+                .defineInRange("maxConcurrentReads", 32, 1, 256);
+
+        HTTP_MAX_CONCURRENT_WRITES = builder
+                .comment("The maximum number of changing requests sent to the API at the same time. Further requests fail immediately.")
+                .defineInRange("maxConcurrentWrites", 8, 1, 256);
+
+        CIRCUIT_BREAKER_FAILURE_RATE_THRESHOLD = builder
+                .comment("The percentage of failed requests, among the last 20, above which requests to the API fail immediately for a while.")
+                .defineInRange("circuitBreakerFailureRateThreshold", 50, 1, 100);
+
+        CIRCUIT_BREAKER_OPEN_SECONDS = builder
+                .comment("How long, in seconds, requests fail immediately once the failure rate threshold is reached, before the API is tried again.")
+                .defineInRange("circuitBreakerOpenSeconds", 30, 1, 3600);
+
+        builder.pop();
 
         builder.pop();
     }
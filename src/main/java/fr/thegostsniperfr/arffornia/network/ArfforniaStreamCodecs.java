@@ -0,0 +1,99 @@
+package fr.thegostsniperfr.arffornia.network;
+
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary codecs for the API data shared over the network.
+ * They only depend on {@link ByteBuf}, so they can also be used to write plain buffers.
+ */
+public final class ArfforniaStreamCodecs {
+
+    public static final StreamCodec<ByteBuf, ArfforniaApiDtos.RecipeIngredient> RECIPE_INGREDIENT = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, ArfforniaApiDtos.RecipeIngredient::item,
+            ByteBufCodecs.VAR_INT, ArfforniaApiDtos.RecipeIngredient::count,
+            ArfforniaApiDtos.RecipeIngredient::new
+    );
+
+    public static final StreamCodec<ByteBuf, ArfforniaApiDtos.RecipeResult> RECIPE_RESULT = StreamCodec.composite(
+            ByteBufCodecs.STRING_UTF8, ArfforniaApiDtos.RecipeResult::item,
+            ByteBufCodecs.VAR_INT, ArfforniaApiDtos.RecipeResult::count,
+            ArfforniaApiDtos.RecipeResult::new
+    );
+
+    /**
+     * Shaped recipes use null ingredients for empty grid cells, so list elements are written with a presence flag.
+     */
+    public static final StreamCodec<ByteBuf, ArfforniaApiDtos.CustomRecipe> CUSTOM_RECIPE = StreamCodec.of(
+            (buf, recipe) -> {
+                ByteBufCodecs.VAR_INT.encode(buf, recipe.id());
+                writeNullable(buf, recipe.type(), ByteBufCodecs.STRING_UTF8);
+                writeNullableList(buf, recipe.ingredients(), RECIPE_INGREDIENT);
+                writeNullableList(buf, recipe.result(), RECIPE_RESULT);
+                writeNullable(buf, recipe.energy(), ByteBufCodecs.VAR_INT);
+                writeNullable(buf, recipe.time(), ByteBufCodecs.VAR_INT);
+                ByteBufCodecs.VAR_INT.encode(buf, recipe.milestoneUnlockId());
+                ByteBufCodecs.VAR_INT.encode(buf, recipe.milestoneId());
+            },
+            buf -> new ArfforniaApiDtos.CustomRecipe(
+                    ByteBufCodecs.VAR_INT.decode(buf),
+                    readNullable(buf, ByteBufCodecs.STRING_UTF8),
+                    readNullableList(buf, RECIPE_INGREDIENT),
+                    readNullableList(buf, RECIPE_RESULT),
+                    readNullable(buf, ByteBufCodecs.VAR_INT),
+                    readNullable(buf, ByteBufCodecs.VAR_INT),
+                    ByteBufCodecs.VAR_INT.decode(buf),
+                    ByteBufCodecs.VAR_INT.decode(buf)
+            )
+    );
+
+    public static final StreamCodec<ByteBuf, List<ArfforniaApiDtos.CustomRecipe>> CUSTOM_RECIPE_LIST =
+            ByteBufCodecs.collection(ArrayList::new, CUSTOM_RECIPE);
+
+    private ArfforniaStreamCodecs() {
+    }
+
+    private static <T> void writeNullable(ByteBuf buf, @Nullable T value, StreamCodec<ByteBuf, T> codec) {
+        ByteBufCodecs.BOOL.encode(buf, value != null);
+        if (value != null) {
+            codec.encode(buf, value);
+        }
+    }
+
+    @Nullable
+    private static <T> T readNullable(ByteBuf buf, StreamCodec<ByteBuf, T> codec) {
+        return ByteBufCodecs.BOOL.decode(buf) ? codec.decode(buf) : null;
+    }
+
+    private static <T> void writeNullableList(ByteBuf buf, @Nullable List<T> list, StreamCodec<ByteBuf, T> codec) {
+        ByteBufCodecs.BOOL.encode(buf, list != null);
+        if (list == null) {
+            return;
+        }
+
+        ByteBufCodecs.VAR_INT.encode(buf, list.size());
+        for (T element : list) {
+            writeNullable(buf, element, codec);
+        }
+    }
+
+    @Nullable
+    private static <T> List<T> readNullableList(ByteBuf buf, StreamCodec<ByteBuf, T> codec) {
+        if (!ByteBufCodecs.BOOL.decode(buf)) {
+            return null;
+        }
+
+        int size = ByteBufCodecs.VAR_INT.decode(buf);
+        List<T> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(readNullable(buf, codec));
+        }
+        return list;
+    }
+}
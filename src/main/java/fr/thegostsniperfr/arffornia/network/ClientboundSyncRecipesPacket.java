@@ -0,0 +1,85 @@
+package fr.thegostsniperfr.arffornia.network;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import fr.thegostsniperfr.arffornia.recipe.ClientRecipeCache;
+import net.minecraft.network.RegistryFriendlyByteBuf;
+import net.minecraft.network.codec.ByteBufCodecs;
+import net.minecraft.network.codec.StreamCodec;
+import net.minecraft.network.protocol.common.custom.CustomPacketPayload;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.neoforge.network.handling.IPayloadContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends custom recipes from the server to the client.
+ * A full sync replaces the whole client cache; otherwise the packet is a delta of added or changed recipes
+ * and of removed recipes, identified by their milestone unlock ID.
+ *
+ * @param replaceAll  Whether the client must drop the recipes missing from {@code retainedIds} before applying this packet.
+ * @param retainedIds For a full sync, the milestone unlock IDs of every recipe of the full set, including
+ *                    those sent in later packets. Empty otherwise.
+ * @param upserts     Recipes to add or replace.
+ * @param removedIds  Milestone unlock IDs of the recipes to remove.
+ */
+public record ClientboundSyncRecipesPacket(boolean replaceAll, List<Integer> retainedIds, List<ArfforniaApiDtos.CustomRecipe> upserts, List<Integer> removedIds) implements CustomPacketPayload {
+    /**
+     * Maximum number of recipes sent in a single packet, to stay well below the payload size limit.
+     */
+    private static final int MAX_RECIPES_PER_PACKET = 256;
+
+    public static final Type<ClientboundSyncRecipesPacket> TYPE = new Type<>(
+            ResourceLocation.fromNamespaceAndPath(Arffornia.MODID, "sync_recipes")
+    );
+
+    public static final StreamCodec<RegistryFriendlyByteBuf, ClientboundSyncRecipesPacket> STREAM_CODEC = StreamCodec.composite(
+            ByteBufCodecs.BOOL,
+            ClientboundSyncRecipesPacket::replaceAll,
+            ByteBufCodecs.VAR_INT.apply(ByteBufCodecs.list()),
+            ClientboundSyncRecipesPacket::retainedIds,
+            ArfforniaStreamCodecs.CUSTOM_RECIPE_LIST,
+            ClientboundSyncRecipesPacket::upserts,
+            ByteBufCodecs.VAR_INT.apply(ByteBufCodecs.list()),
+            ClientboundSyncRecipesPacket::removedIds,
+            ClientboundSyncRecipesPacket::new
+    );
+
+    /**
+     * Builds the packets for a full sync. Only the first one replaces the client cache, and it carries the IDs
+     * of the whole set, so recipes sent in later packets are kept instead of being removed and added back.
+     */
+    public static List<ClientboundSyncRecipesPacket> fullSync(List<ArfforniaApiDtos.CustomRecipe> recipes) {
+        List<Integer> allIds = recipes.stream().map(ArfforniaApiDtos.CustomRecipe::milestoneUnlockId).toList();
+        List<ClientboundSyncRecipesPacket> packets = new ArrayList<>();
+        packets.add(new ClientboundSyncRecipesPacket(true, allIds, List.copyOf(recipes.subList(0, Math.min(MAX_RECIPES_PER_PACKET, recipes.size()))), List.of()));
+        for (int start = MAX_RECIPES_PER_PACKET; start < recipes.size(); start += MAX_RECIPES_PER_PACKET) {
+            packets.add(new ClientboundSyncRecipesPacket(false, List.of(), List.copyOf(recipes.subList(start, Math.min(start + MAX_RECIPES_PER_PACKET, recipes.size()))), List.of()));
+        }
+        return packets;
+    }
+
+    /**
+     * Builds the packets for a delta. Returns no packet if nothing changed.
+     */
+    public static List<ClientboundSyncRecipesPacket> delta(List<ArfforniaApiDtos.CustomRecipe> upserts, List<Integer> removedIds) {
+        List<ClientboundSyncRecipesPacket> packets = new ArrayList<>();
+        if (!removedIds.isEmpty()) {
+            packets.add(new ClientboundSyncRecipesPacket(false, List.of(), List.of(), List.copyOf(removedIds)));
+        }
+        for (int start = 0; start < upserts.size(); start += MAX_RECIPES_PER_PACKET) {
+            packets.add(new ClientboundSyncRecipesPacket(false, List.of(), List.copyOf(upserts.subList(start, Math.min(start + MAX_RECIPES_PER_PACKET, upserts.size()))), List.of()));
+        }
+        return packets;
+    }
+
+    public static void handle(final ClientboundSyncRecipesPacket packet, final IPayloadContext context) {
+        context.enqueueWork(() -> ClientRecipeCache.applySync(packet.replaceAll(), packet.retainedIds(), packet.upserts(), packet.removedIds()));
+    }
+
+    @Override
+    public Type<? extends CustomPacketPayload> type() {
+        return TYPE;
+    }
+}
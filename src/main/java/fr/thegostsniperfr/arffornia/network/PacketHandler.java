@@ -8,7 +8,7 @@ import net.neoforged.neoforge.network.registration.PayloadRegistrar;
 
 @EventBusSubscriber(modid = Arffornia.MODID, bus = EventBusSubscriber.Bus.MOD)
 public final class PacketHandler {
-    private static final String PROTOCOL_VERSION = "1.0";
+    private static final String PROTOCOL_VERSION = "1.1";
 
     @SubscribeEvent
     public static void register(final RegisterPayloadHandlersEvent event) {
@@ -44,5 +44,11 @@ public final class PacketHandler {
                 ServerboundPlaceRecipePacket.STREAM_CODEC,
                 ServerboundPlaceRecipePacket::handle
         );
+
+        registrar.playToClient(
+                ClientboundSyncRecipesPacket.TYPE,
+                ClientboundSyncRecipesPacket.STREAM_CODEC,
+                ClientboundSyncRecipesPacket::handle
+        );
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package fr.thegostsniperfr.arffornia.recipe;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+import net.minecraft.resources.ResourceLocation;
+import net.neoforged.fml.loading.FMLPaths;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The last known set of banned recipes, kept in memory and in a local file.
+ * Reloads read it without waiting for the API, and it survives restarts while the API is unreachable.
+ * <p>
+ * Format: one recipe ID per line, sorted.
+ */
+public final class BannedRecipeStore {
+    private static volatile Set<ResourceLocation> bannedRecipes = null;
+
+    private BannedRecipeStore() {
+    }
+
+    public static Path getPath() {
+        return FMLPaths.CONFIGDIR.get().resolve(Arffornia.MODID).resolve("banned_recipes.txt");
+    }
+
+    /**
+     * @return The banned recipes, read from disk on first use. Empty if nothing was ever stored.
+     */
+    public static Set<ResourceLocation> get() {
+        Set<ResourceLocation> current = bannedRecipes;
+        if (current == null) {
+            synchronized (BannedRecipeStore.class) {
+                if (bannedRecipes == null) {
+                    bannedRecipes = read();
+                }
+                current = bannedRecipes;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Replaces the banned recipes, and writes them to disk if they changed.
+     *
+     * @param recipes The new set of banned recipes.
+     * @return true if the set changed.
+     */
+    public static synchronized boolean update(Set<ResourceLocation> recipes) {
+        if (recipes.equals(get())) {
+            return false;
+        }
+
+        bannedRecipes = Set.copyOf(recipes);
+        write(bannedRecipes);
+        return true;
+    }
+
+    private static Set<ResourceLocation> read() {
+        Path path = getPath();
+        if (!Files.exists(path)) {
+            return Set.of();
+        }
+
+        try {
+            Set<ResourceLocation> recipes = new HashSet<>();
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                ResourceLocation id = ResourceLocation.tryParse(line.trim());
+                if (id != null) {
+                    recipes.add(id);
+                }
+            }
+            Arffornia.LOGGER.info("Loaded {} banned recipes from {}.", recipes.size(), path);
+            return Set.copyOf(recipes);
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to read banned recipes from {}: {}", path, e.getMessage());
+            return Set.of();
+        }
+    }
+
+    /**
+     * Writes the file atomically, so a crash never leaves a truncated list.
+     */
+    private static void write(Set<ResourceLocation> recipes) {
+        Path path = getPath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        List<String> lines = recipes.stream()
+                .sorted(Comparator.comparing(ResourceLocation::toString))
+                .map(ResourceLocation::toString)
+                .toList();
+
+        try {
+            Files.createDirectories(path.getParent());
+            Files.write(tmp, lines, StandardCharsets.UTF_8);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Arffornia.LOGGER.error("Failed to write banned recipes to {}: {}", path, e.getMessage());
+        }
+    }
+}
@@ -2,43 +2,105 @@ package fr.thegostsniperfr.arffornia.recipe;
 
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
-import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Collectors;
 
+/**
+ * Client-side copy of the custom recipes, filled by the server through {@link fr.thegostsniperfr.arffornia.network.ClientboundSyncRecipesPacket}.
+ */
 public class ClientRecipeCache {
-    private static final Map<Integer, List<ArfforniaApiDtos.CustomRecipe>> RECIPES_BY_MILESTONE_ID = new ConcurrentHashMap<>();
-
-    public static void loadRecipes() {
-        Arffornia.LOGGER.info("Client: Fetching all custom recipes for caching...");
-        ArfforniaApiService.getInstance().fetchAllCustomRecipes().thenAccept(recipes -> {
-            RECIPES_BY_MILESTONE_ID.clear();
-            if (recipes != null && !recipes.isEmpty()) {
-                RECIPES_BY_MILESTONE_ID.putAll(
-                        recipes.stream().collect(Collectors.groupingBy(
-                                ArfforniaApiDtos.CustomRecipe::milestoneId
-                        ))
-                );
-                Arffornia.LOGGER.info("Client: Successfully cached {} custom recipes grouped into {} milestone IDs.",
-                        recipes.size(), RECIPES_BY_MILESTONE_ID.size());
-            } else {
-                Arffornia.LOGGER.warn("Client: No custom recipes were loaded from the API.");
+    private static final Map<Integer, ArfforniaApiDtos.CustomRecipe> RECIPES_BY_MILESTONE_UNLOCK_ID = new ConcurrentHashMap<>();
+    private static volatile Map<Integer, List<ArfforniaApiDtos.CustomRecipe>> recipesByMilestoneId = Map.of();
+    private static final List<Listener> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /**
+     * Notified on the client thread every time the cached recipes change, e.g. to update JEI.
+     */
+    public interface Listener {
+        void onRecipesChanged(Collection<ArfforniaApiDtos.CustomRecipe> added, Collection<ArfforniaApiDtos.CustomRecipe> removed);
+    }
+
+    public static void addListener(Listener listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * Applies recipes received from the server. Must be called on the client thread.
+     *
+     * @param replaceAll  Whether the recipes missing from {@code retainedIds} must be dropped first.
+     * @param retainedIds The milestone unlock IDs of the full recipe set, when {@code replaceAll} is set.
+     *                    Cached recipes among them are kept, and replaced only if they changed.
+     * @param upserts     The recipes to add or replace.
+     * @param removedIds  The milestone unlock IDs of the recipes to remove.
+     */
+    public static void applySync(boolean replaceAll, List<Integer> retainedIds, List<ArfforniaApiDtos.CustomRecipe> upserts, List<Integer> removedIds) {
+        List<ArfforniaApiDtos.CustomRecipe> added = new ArrayList<>();
+        List<ArfforniaApiDtos.CustomRecipe> removed = new ArrayList<>();
+
+        if (replaceAll) {
+            Set<Integer> kept = new HashSet<>(retainedIds);
+            Iterator<Map.Entry<Integer, ArfforniaApiDtos.CustomRecipe>> iterator = RECIPES_BY_MILESTONE_UNLOCK_ID.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Integer, ArfforniaApiDtos.CustomRecipe> entry = iterator.next();
+                if (!kept.contains(entry.getKey())) {
+                    removed.add(entry.getValue());
+                    iterator.remove();
+                }
+            }
+        }
+
+        for (Integer id : removedIds) {
+            ArfforniaApiDtos.CustomRecipe previous = RECIPES_BY_MILESTONE_UNLOCK_ID.remove(id);
+            if (previous != null) {
+                removed.add(previous);
+            }
+        }
+
+        for (ArfforniaApiDtos.CustomRecipe recipe : upserts) {
+            ArfforniaApiDtos.CustomRecipe previous = RECIPES_BY_MILESTONE_UNLOCK_ID.put(recipe.milestoneUnlockId(), recipe);
+            if (recipe.equals(previous)) {
+                continue;
             }
-        });
+            if (previous != null) {
+                removed.add(previous);
+            }
+            added.add(recipe);
+        }
+
+        recipesByMilestoneId = RECIPES_BY_MILESTONE_UNLOCK_ID.values().stream()
+                .collect(Collectors.groupingBy(ArfforniaApiDtos.CustomRecipe::milestoneId));
+
+        Arffornia.LOGGER.debug("Client: Recipe sync applied ({} added, {} removed). {} recipes cached.",
+                added.size(), removed.size(), RECIPES_BY_MILESTONE_UNLOCK_ID.size());
+
+        if (!added.isEmpty() || !removed.isEmpty()) {
+            LISTENERS.forEach(listener -> listener.onRecipesChanged(added, removed));
+        }
+    }
+
+    /**
+     * Drops every cached recipe without notifying listeners. Called on logout, as the next server may have other recipes
+     * and JEI registers the cached ones again when it reloads.
+     */
+    public static void clear() {
+        RECIPES_BY_MILESTONE_UNLOCK_ID.clear();
+        recipesByMilestoneId = Map.of();
     }
 
     public static List<ArfforniaApiDtos.CustomRecipe> getRecipesByMilestoneIds(Set<Integer> unlockedMilestoneIds) {
+        Map<Integer, List<ArfforniaApiDtos.CustomRecipe>> byMilestoneId = recipesByMilestoneId;
         Arffornia.LOGGER.info("ClientRecipeCache: Filtering against a cache of size {}. Unlocked milestone IDs received: {}",
-                RECIPES_BY_MILESTONE_ID.size(), unlockedMilestoneIds);
+                byMilestoneId.size(), unlockedMilestoneIds);
 
         if (unlockedMilestoneIds == null || unlockedMilestoneIds.isEmpty()) {
             return Collections.emptyList();
         }
 
         return unlockedMilestoneIds.stream()
-                .map(id -> RECIPES_BY_MILESTONE_ID.getOrDefault(id, Collections.emptyList()))
+                .map(id -> byMilestoneId.getOrDefault(id, Collections.emptyList()))
                 .flatMap(List::stream)
                 .collect(Collectors.toList());
     }
@@ -48,8 +110,6 @@ public class ClientRecipeCache {
      * @return A collection of all cached recipes.
      */
     public static Collection<ArfforniaApiDtos.CustomRecipe> getAllCachedRecipes() {
-        return RECIPES_BY_MILESTONE_ID.values().stream()
-                .flatMap(List::stream)
-                .collect(Collectors.toList());
+        return List.copyOf(RECIPES_BY_MILESTONE_UNLOCK_ID.values());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,155 @@
+package fr.thegostsniperfr.arffornia.recipe;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable runtime form of a {@link ArfforniaApiDtos.CustomRecipe}, compiled once when recipes are loaded.
+ * Item ids are resolved against the registry and ingredients are aggregated per item,
+ * so the crafter tick path does not need to parse or allocate anything.
+ */
+public final class CompiledRecipe {
+    private static final int DEFAULT_TIME = 200;
+
+    private final ArfforniaApiDtos.CustomRecipe source;
+    private final Item[] ingredientItems;
+    private final int[] ingredientCounts;
+    private final ItemStack[] results;
+    private final int energy;
+    private final int time;
+    private final boolean valid;
+
+    private CompiledRecipe(ArfforniaApiDtos.CustomRecipe source, Item[] ingredientItems, int[] ingredientCounts, ItemStack[] results, boolean valid) {
+        this.source = source;
+        this.ingredientItems = ingredientItems;
+        this.ingredientCounts = ingredientCounts;
+        this.results = results;
+        this.energy = source.energy() != null ? source.energy() : 0;
+        this.time = source.time() != null && source.time() > 0 ? source.time() : DEFAULT_TIME;
+        this.valid = valid;
+    }
+
+    /**
+     * Compiles a recipe received from the API.
+     * A recipe referencing an unknown item is kept but marked as invalid, so it can never be crafted.
+     *
+     * @param recipe The recipe to compile.
+     * @return The compiled recipe.
+     */
+    public static CompiledRecipe compile(ArfforniaApiDtos.CustomRecipe recipe) {
+        boolean valid = true;
+
+        Map<Item, Integer> aggregated = new LinkedHashMap<>();
+        if (recipe.ingredients() != null) {
+            for (ArfforniaApiDtos.RecipeIngredient ingredient : recipe.ingredients()) {
+                if (ingredient == null) {
+                    continue;
+                }
+
+                Item item = resolve(ingredient.item());
+                if (item == Items.AIR) {
+                    Arffornia.LOGGER.warn("Custom recipe {} uses unknown ingredient '{}'. It will not be craftable.", recipe.milestoneUnlockId(), ingredient.item());
+                    valid = false;
+                    continue;
+                }
+                aggregated.merge(item, ingredient.count(), Integer::sum);
+            }
+        }
+
+        Item[] ingredientItems = new Item[aggregated.size()];
+        int[] ingredientCounts = new int[aggregated.size()];
+        int i = 0;
+        for (Map.Entry<Item, Integer> entry : aggregated.entrySet()) {
+            ingredientItems[i] = entry.getKey();
+            ingredientCounts[i] = entry.getValue();
+            i++;
+        }
+
+        List<ItemStack> results = new ArrayList<>();
+        if (recipe.result() != null) {
+            for (ArfforniaApiDtos.RecipeResult result : recipe.result()) {
+                if (result == null) {
+                    continue;
+                }
+
+                Item item = resolve(result.item());
+                if (item == Items.AIR) {
+                    Arffornia.LOGGER.warn("Custom recipe {} produces unknown item '{}'. It will not be craftable.", recipe.milestoneUnlockId(), result.item());
+                    valid = false;
+                    continue;
+                }
+                results.add(new ItemStack(item, result.count()));
+            }
+        }
+
+        if (ingredientItems.length == 0) {
+            valid = false;
+        }
+
+        return new CompiledRecipe(recipe, ingredientItems, ingredientCounts, results.toArray(new ItemStack[0]), valid);
+    }
+
+    private static Item resolve(String itemId) {
+        ResourceLocation id = ResourceLocation.tryParse(itemId);
+        return id != null ? BuiltInRegistries.ITEM.get(id) : Items.AIR;
+    }
+
+    public ArfforniaApiDtos.CustomRecipe source() {
+        return source;
+    }
+
+    public int milestoneUnlockId() {
+        return source.milestoneUnlockId();
+    }
+
+    /**
+     * @return false if the recipe references unknown items or has no ingredients.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    public int ingredientTypeCount() {
+        return ingredientItems.length;
+    }
+
+    public Item ingredientItem(int index) {
+        return ingredientItems[index];
+    }
+
+    /**
+     * @return The total amount of the ingredient at the given index, summed over the whole grid.
+     */
+    public int ingredientCount(int index) {
+        return ingredientCounts[index];
+    }
+
+    public int resultCount() {
+        return results.length;
+    }
+
+    /**
+     * Returns the prototype stack of a result. It must not be modified; use {@link ItemStack#copy()} before inserting it.
+     */
+    public ItemStack result(int index) {
+        return results[index];
+    }
+
+    public int energy() {
+        return energy;
+    }
+
+    public int time() {
+        return time;
+    }
+}
@@ -0,0 +1,91 @@
+package fr.thegostsniperfr.arffornia.recipe;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.minecraft.core.RegistryAccess;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Recipe;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.ShapedRecipe;
+import net.minecraft.world.item.crafting.ShapelessRecipe;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index of the crafting recipes that can be migrated to custom recipes, keyed by the item they produce.
+ * For each item, candidates are ranked with shaped recipes first, then in their original order.
+ */
+public final class CraftingRecipeIndex {
+    private final Map<Item, List<RecipeHolder<?>>> candidatesByResult;
+
+    private CraftingRecipeIndex(Map<Item, List<RecipeHolder<?>>> candidatesByResult) {
+        this.candidatesByResult = candidatesByResult;
+    }
+
+    /**
+     * Builds the index in a single pass over the given recipes.
+     *
+     * @param recipes        The recipes to index.
+     * @param registryAccess The registry access used to resolve recipe results.
+     * @return The built index.
+     */
+    public static CraftingRecipeIndex build(Iterable<RecipeHolder<?>> recipes, RegistryAccess registryAccess) {
+        Map<Item, List<RecipeHolder<?>>> candidates = new Reference2ObjectOpenHashMap<>();
+
+        for (RecipeHolder<?> holder : recipes) {
+            if (holder.id().getNamespace().equals(Arffornia.MODID) || !isSupported(holder.value())) {
+                continue;
+            }
+
+            ItemStack result;
+            try {
+                result = holder.value().getResultItem(registryAccess);
+            } catch (RuntimeException e) {
+                // Some modded recipes cannot compute their result outside of a crafting context.
+                continue;
+            }
+            if (result == null || result.isEmpty()) {
+                continue;
+            }
+
+            candidates.computeIfAbsent(result.getItem(), k -> new ArrayList<>(1)).add(holder);
+        }
+
+        // List.sort is stable, so recipes of the same kind keep their original order.
+        Comparator<RecipeHolder<?>> shapedFirst = Comparator.comparingInt(holder -> holder.value() instanceof ShapedRecipe ? 0 : 1);
+        candidates.values().forEach(list -> list.sort(shapedFirst));
+
+        return new CraftingRecipeIndex(candidates);
+    }
+
+    private static boolean isSupported(Recipe<?> recipe) {
+        if (recipe instanceof ShapedRecipe || recipe instanceof ShapelessRecipe) {
+            return true;
+        }
+
+        String typeId = recipe.getType().toString();
+        String className = recipe.getClass().getSimpleName();
+
+        return typeId.contains("infusion") || className.contains("InfusionRecipe");
+    }
+
+    /**
+     * @return The best recipe producing the given item, or empty if there is none.
+     */
+    public Optional<RecipeHolder<?>> findBest(ItemStack result) {
+        List<RecipeHolder<?>> candidates = candidatesByResult.get(result.getItem());
+        return candidates != null ? Optional.of(candidates.get(0)) : Optional.empty();
+    }
+
+    /**
+     * @return The number of distinct items that have at least one candidate recipe.
+     */
+    public int size() {
+        return candidatesByResult.size();
+    }
+}
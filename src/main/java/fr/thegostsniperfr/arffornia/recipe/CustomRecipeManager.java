@@ -3,13 +3,22 @@ package fr.thegostsniperfr.arffornia.recipe;
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.network.ClientboundSyncRecipesPacket;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
 import net.neoforged.bus.api.SubscribeEvent;
+import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStartingEvent;
+import net.neoforged.neoforge.network.PacketDistributor;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
@@ -17,32 +26,65 @@ import java.util.stream.Collectors;
 
 public class CustomRecipeManager {
     private static final Map<Integer, ArfforniaApiDtos.CustomRecipe> RECIPES_BY_MILESTONE_UNLOCK_ID = new ConcurrentHashMap<>();
+    private static final Map<Integer, CompiledRecipe> COMPILED_BY_MILESTONE_UNLOCK_ID = new ConcurrentHashMap<>();
+    /**
+     * Incremented every time the recipes are reloaded, so that idle crafters know they must re-check their recipe.
+     */
+    private static volatile long recipeGeneration = 0;
+
+    /**
+     * Loads the recipes saved by the previous run before the world is loaded,
+     * so crafters have their recipes immediately, even if the API cannot be reached.
+     */
+    @SubscribeEvent
+    public static void onServerStarting(ServerStartingEvent event) {
+        List<ArfforniaApiDtos.CustomRecipe> snapshot = RecipeSnapshot.read();
+        if (snapshot != null) {
+            applyRecipes(snapshot);
+            Arffornia.LOGGER.info("Loaded {} custom recipes from the local snapshot.", RECIPES_BY_MILESTONE_UNLOCK_ID.size());
+        } else {
+            Arffornia.LOGGER.info("No custom recipe snapshot found. Recipes will be available once fetched from the API.");
+        }
+    }
 
     /**
-     * This event fires once the server is fully started and after migration is complete.
-     * This is the definitive time to load the custom recipes.
+     * Refreshes the recipes from the API in the background once the server is started.
      */
     @SubscribeEvent
     public static void onServerStarted(ServerStartedEvent event) {
         loadRecipes();
     }
 
+    /**
+     * Sends the full recipe set to players as they log in, so clients never have to reach the API themselves.
+     */
+    @SubscribeEvent
+    public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
+        if (event.getEntity() instanceof ServerPlayer player) {
+            ClientboundSyncRecipesPacket.fullSync(List.copyOf(RECIPES_BY_MILESTONE_UNLOCK_ID.values()))
+                    .forEach(packet -> PacketDistributor.sendToPlayer(player, packet));
+        }
+    }
+
     /**
      * Fetches custom recipes from the API and caches them.
      * This is called on server start and after a successful migration.
+     * If the API cannot be reached, the last known recipes are kept.
+     * Otherwise, the local snapshot is updated and connected players receive the recipes that were added, changed or removed.
      */
     public static CompletableFuture<Void> loadRecipes() {
         Arffornia.LOGGER.info("Fetching custom recipes from Arffornia API...");
         return ArfforniaApiService.getInstance().fetchAllCustomRecipes().thenAccept(recipes -> {
-            RECIPES_BY_MILESTONE_UNLOCK_ID.clear();
-            if (recipes != null && !recipes.isEmpty()) {
-                RECIPES_BY_MILESTONE_UNLOCK_ID.putAll(
-                        recipes.stream().collect(Collectors.toMap(
-                                ArfforniaApiDtos.CustomRecipe::milestoneUnlockId,
-                                Function.identity(),
-                                (r1, r2) -> r1
-                        ))
-                );
+            if (recipes == null) {
+                Arffornia.LOGGER.warn("Could not fetch custom recipes from the API. Keeping the {} recipes currently loaded.", RECIPES_BY_MILESTONE_UNLOCK_ID.size());
+                return;
+            }
+
+            if (applyRecipes(recipes)) {
+                RecipeSnapshot.write(List.copyOf(RECIPES_BY_MILESTONE_UNLOCK_ID.values()));
+            }
+
+            if (!RECIPES_BY_MILESTONE_UNLOCK_ID.isEmpty()) {
                 Arffornia.LOGGER.info("Successfully loaded and cached {} custom recipes.", RECIPES_BY_MILESTONE_UNLOCK_ID.size());
             } else {
                 Arffornia.LOGGER.warn("No custom recipes were loaded from the API.");
@@ -50,11 +92,80 @@ public class CustomRecipeManager {
         });
     }
 
+    /**
+     * Replaces the cached recipes with the given set and sends the differences to connected players.
+     * New recipes are stored before stale ones are removed, so lookups never see an empty cache during a reload.
+     *
+     * @return true if the recipe set changed.
+     */
+    private static synchronized boolean applyRecipes(List<ArfforniaApiDtos.CustomRecipe> recipes) {
+        Map<Integer, ArfforniaApiDtos.CustomRecipe> previous = Map.copyOf(RECIPES_BY_MILESTONE_UNLOCK_ID);
+        Map<Integer, ArfforniaApiDtos.CustomRecipe> current = recipes.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toMap(
+                        ArfforniaApiDtos.CustomRecipe::milestoneUnlockId,
+                        Function.identity(),
+                        (r1, r2) -> r1
+                ));
+
+        current.forEach((id, recipe) -> {
+            if (!recipe.equals(previous.get(id))) {
+                COMPILED_BY_MILESTONE_UNLOCK_ID.put(id, CompiledRecipe.compile(recipe));
+                RECIPES_BY_MILESTONE_UNLOCK_ID.put(id, recipe);
+            }
+        });
+        RECIPES_BY_MILESTONE_UNLOCK_ID.keySet().retainAll(current.keySet());
+        COMPILED_BY_MILESTONE_UNLOCK_ID.keySet().retainAll(current.keySet());
+
+        if (previous.equals(current)) {
+            return false;
+        }
+
+        recipeGeneration++;
+        broadcastChanges(previous, current);
+        return true;
+    }
+
+    private static void broadcastChanges(Map<Integer, ArfforniaApiDtos.CustomRecipe> previous, Map<Integer, ArfforniaApiDtos.CustomRecipe> current) {
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server == null) {
+            return;
+        }
+
+        List<ArfforniaApiDtos.CustomRecipe> upserts = current.values().stream()
+                .filter(recipe -> !recipe.equals(previous.get(recipe.milestoneUnlockId())))
+                .toList();
+        List<Integer> removedIds = previous.keySet().stream()
+                .filter(id -> !current.containsKey(id))
+                .toList();
+
+        if (upserts.isEmpty() && removedIds.isEmpty()) {
+            return;
+        }
+
+        Arffornia.LOGGER.info("Sending recipe changes to clients: {} added or changed, {} removed.", upserts.size(), removedIds.size());
+        List<ClientboundSyncRecipesPacket> packets = ClientboundSyncRecipesPacket.delta(upserts, removedIds);
+        server.execute(() -> packets.forEach(PacketDistributor::sendToAllPlayers));
+    }
+
     @Nullable
     public static ArfforniaApiDtos.CustomRecipe getRecipeByMilestoneUnlockId(int milestoneUnlockId) {
         return RECIPES_BY_MILESTONE_UNLOCK_ID.get(milestoneUnlockId);
     }
 
+    /**
+     * Returns the compiled form of a recipe, with its items already resolved.
+     * This is the lookup to use from ticking code.
+     */
+    @Nullable
+    public static CompiledRecipe getCompiledRecipe(int milestoneUnlockId) {
+        return COMPILED_BY_MILESTONE_UNLOCK_ID.get(milestoneUnlockId);
+    }
+
+    public static long getRecipeGeneration() {
+        return recipeGeneration;
+    }
+
     public static Collection<ArfforniaApiDtos.CustomRecipe> getAllRecipes() {
         return Collections.unmodifiableCollection(RECIPES_BY_MILESTONE_UNLOCK_ID.values());
     }
@@ -0,0 +1,34 @@
+package fr.thegostsniperfr.arffornia.recipe;
+
+import com.google.common.collect.Iterators;
+import net.minecraft.world.item.crafting.RecipeHolder;
+import net.minecraft.world.item.crafting.RecipeManager;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The recipes as loaded from data packs, before banning, without copying them:
+ * the recipes still active in the manager, followed by the banned ones.
+ * Holders are shared with the manager, so the view only owns the few banned holders.
+ */
+final class OriginalRecipeView extends AbstractCollection<RecipeHolder<?>> {
+    private final RecipeManager manager;
+    private final List<RecipeHolder<?>> bannedRecipes;
+
+    OriginalRecipeView(RecipeManager manager, List<RecipeHolder<?>> bannedRecipes) {
+        this.manager = manager;
+        this.bannedRecipes = bannedRecipes;
+    }
+
+    @Override
+    public Iterator<RecipeHolder<?>> iterator() {
+        return Iterators.concat(manager.getRecipes().iterator(), bannedRecipes.iterator());
+    }
+
+    @Override
+    public int size() {
+        return manager.getRecipes().size() + bannedRecipes.size();
+    }
+}
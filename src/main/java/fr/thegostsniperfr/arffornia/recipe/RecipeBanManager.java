@@ -1,8 +1,12 @@
 package fr.thegostsniperfr.arffornia.recipe;
 
+import com.google.common.collect.Iterables;
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.api.service.ArfforniaApiService;
+import fr.thegostsniperfr.arffornia.config.ApiConfig;
+import net.minecraft.core.RegistryAccess;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimplePreparableReloadListener;
 import net.minecraft.util.profiling.ProfilerFiller;
@@ -10,62 +14,164 @@ import net.minecraft.world.item.crafting.RecipeHolder;
 import net.minecraft.world.item.crafting.RecipeManager;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.neoforge.event.AddReloadListenerEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
+import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class RecipeBanManager {
 
     private static Collection<RecipeHolder<?>> originalRecipes = Collections.emptyList();
+    @Nullable
+    private static ScheduledExecutorService refreshScheduler = null;
+    /**
+     * Lazily built from {@link #originalRecipes}, and discarded on every reload.
+     */
+    @Nullable
+    private static CraftingRecipeIndex craftingRecipeIndex = null;
 
     /**
      * Provides access to the original, unmodified recipe list for other parts of the mod, like migration.
-     * @return A collection of all recipes as loaded from data packs.
+     * @return A read-only view of all recipes as loaded from data packs, banned ones included.
      */
     public static Collection<RecipeHolder<?>> getOriginalRecipes() {
         return originalRecipes;
     }
 
+    /**
+     * Returns the index of craftable results for the given recipes. The index of the original recipes
+     * is built once per reload and shared; any other collection gets a fresh index, built outside the lock,
+     * which callers looking up many items should keep instead of calling this again.
+     *
+     * @param recipes        The recipes to look into, usually {@link #getOriginalRecipes()}.
+     * @param registryAccess The registry access used to resolve recipe results.
+     * @return The index of the given recipes.
+     */
+    public static CraftingRecipeIndex getCraftingRecipeIndex(Collection<RecipeHolder<?>> recipes, RegistryAccess registryAccess) {
+        synchronized (RecipeBanManager.class) {
+            if (recipes == originalRecipes) {
+                if (craftingRecipeIndex == null) {
+                    long start = System.nanoTime();
+                    craftingRecipeIndex = CraftingRecipeIndex.build(originalRecipes, registryAccess);
+                    Arffornia.LOGGER.info("Indexed {} craftable items from {} recipes in {} ms.",
+                            craftingRecipeIndex.size(), originalRecipes.size(), (System.nanoTime() - start) / 1_000_000);
+                }
+                return craftingRecipeIndex;
+            }
+        }
+        return CraftingRecipeIndex.build(recipes, registryAccess);
+    }
+
+    /**
+     * Fetches the banned recipes from the API in the background once the server is started, then periodically.
+     */
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        refreshScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Arffornia-Banned-Recipes-Refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        int interval = ApiConfig.BANNED_RECIPES_REFRESH_SECONDS.get();
+        if (interval > 0) {
+            refreshScheduler.scheduleWithFixedDelay(() -> refreshBannedRecipes().join(), 0, interval, TimeUnit.SECONDS);
+        } else {
+            refreshScheduler.execute(() -> refreshBannedRecipes().join());
+        }
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdownNow();
+            refreshScheduler = null;
+        }
+    }
+
+    /**
+     * Fetches the banned recipes from the API and stores them.
+     * If they changed, the data packs are reloaded so the new list is applied.
+     * If the API cannot be reached, the last known list is kept.
+     *
+     * @return A future completed with true if the list changed.
+     */
+    public static CompletableFuture<Boolean> refreshBannedRecipes() {
+        return ArfforniaApiService.getInstance().fetchProgressionConfig().thenApply(config -> {
+            if (config == null || config.bannedRecipes() == null) {
+                Arffornia.LOGGER.warn("Could not fetch banned recipes from the API. Keeping the {} banned recipes currently known.", BannedRecipeStore.get().size());
+                return false;
+            }
+
+            Set<ResourceLocation> banned = config.bannedRecipes().stream()
+                    .map(ResourceLocation::tryParse)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet());
+
+            if (!BannedRecipeStore.update(banned)) {
+                return false;
+            }
+
+            MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+            if (server != null && server.isRunning()) {
+                Arffornia.LOGGER.info("Banned recipe list changed ({} recipes). Reloading data packs.", banned.size());
+                server.execute(() -> server.reloadResources(server.getPackRepository().getSelectedIds()).exceptionally(ex -> {
+                    Arffornia.LOGGER.error("Failed to reload data packs after a banned recipe change", ex);
+                    return null;
+                }));
+            }
+            return true;
+        }).exceptionally(ex -> {
+            Arffornia.LOGGER.error("Failed to refresh banned recipes", ex);
+            return false;
+        });
+    }
+
     @SubscribeEvent
     public static void onAddReloadListener(AddReloadListenerEvent event) {
         event.addListener(new SimplePreparableReloadListener<Set<ResourceLocation>>() {
 
             @Override
             protected Set<ResourceLocation> prepare(ResourceManager resourceManager, ProfilerFiller profiler) {
-                // This part runs on a worker thread.
-                Arffornia.LOGGER.info("Fetching banned recipe list from API...");
-                try {
-                    return ArfforniaApiService.getInstance().fetchProgressionConfig().join().bannedRecipes()
-                            .stream()
-                            .map(ResourceLocation::parse)
-                            .collect(Collectors.toSet());
-                } catch (Exception e) {
-                    Arffornia.LOGGER.error("Failed to fetch banned recipes from API. No recipes will be banned.", e);
-                    return Set.of();
+                // This part runs on a worker thread. The last known ban list is used right away;
+                // a newer one found by the refresh triggers another reload once fetched.
+                if (ServerLifecycleHooks.getCurrentServer() != null) {
+                    refreshBannedRecipes();
                 }
+                return BannedRecipeStore.get();
             }
 
             @Override
             protected void apply(Set<ResourceLocation> apiBannedRecipes, ResourceManager resourceManager, ProfilerFiller profiler) {
                 RecipeManager manager = event.getServerResources().getRecipeManager();
 
-                RecipeBanManager.originalRecipes = new ArrayList<>(manager.getRecipes());
-                Arffornia.LOGGER.info("Cached {} original recipes before banning.", RecipeBanManager.originalRecipes.size());
-
-                int originalCount = RecipeBanManager.originalRecipes.size();
-                List<RecipeHolder<?>> filteredRecipes = RecipeBanManager.originalRecipes.stream()
-                        .filter(recipe -> !apiBannedRecipes.contains(recipe.id()))
-                        .collect(Collectors.toList());
+                // Only the banned holders are looked up and kept; the manager still holds every other recipe.
+                List<RecipeHolder<?>> bannedHolders = new ArrayList<>();
+                for (ResourceLocation id : apiBannedRecipes) {
+                    manager.byKey(id).ifPresent(bannedHolders::add);
+                }
 
-                manager.replaceRecipes(filteredRecipes);
+                if (!bannedHolders.isEmpty()) {
+                    Set<ResourceLocation> bannedIds = bannedHolders.stream().map(RecipeHolder::id).collect(Collectors.toSet());
+                    manager.replaceRecipes(Iterables.filter(manager.getRecipes(), recipe -> !bannedIds.contains(recipe.id())));
+                    Arffornia.LOGGER.info("Recipe ban process complete. Removed {} recipes from active manager.", bannedHolders.size());
+                }
 
-                int removedCount = originalCount - filteredRecipes.size();
-                if (removedCount > 0) {
-                    Arffornia.LOGGER.info("Recipe ban process complete. Removed {} recipes from active manager.", removedCount);
+                synchronized (RecipeBanManager.class) {
+                    RecipeBanManager.originalRecipes = new OriginalRecipeView(manager, List.copyOf(bannedHolders));
+                    RecipeBanManager.craftingRecipeIndex = null;
                 }
             }
         });
@@ -0,0 +1,96 @@
+package fr.thegostsniperfr.arffornia.recipe;
+
+import fr.thegostsniperfr.arffornia.Arffornia;
+import fr.thegostsniperfr.arffornia.api.dto.ArfforniaApiDtos;
+import fr.thegostsniperfr.arffornia.network.ArfforniaStreamCodecs;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import net.neoforged.fml.loading.FMLPaths;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * Local binary copy of the last custom recipe set received from the API.
+ * It lets the server have its recipes as soon as it starts, even if the API cannot be reached.
+ * <p>
+ * Format: a magic number, a format version, then the recipes encoded with {@link ArfforniaStreamCodecs#CUSTOM_RECIPE_LIST}.
+ */
+public final class RecipeSnapshot {
+    private static final int MAGIC = 0x41524352; // "ARCR"
+    private static final int FORMAT_VERSION = 1;
+
+    private RecipeSnapshot() {
+    }
+
+    public static Path getPath() {
+        return FMLPaths.CONFIGDIR.get().resolve(Arffornia.MODID).resolve("custom_recipes.bin");
+    }
+
+    /**
+     * Reads the snapshot from disk.
+     *
+     * @return The stored recipes, or null if there is no usable snapshot.
+     */
+    @Nullable
+    public static List<ArfforniaApiDtos.CustomRecipe> read() {
+        Path path = getPath();
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        ByteBuf buf = null;
+        try {
+            buf = Unpooled.wrappedBuffer(Files.readAllBytes(path));
+            if (buf.readInt() != MAGIC) {
+                Arffornia.LOGGER.warn("Ignoring custom recipe snapshot {}: not a recipe snapshot.", path);
+                return null;
+            }
+
+            int version = buf.readInt();
+            if (version != FORMAT_VERSION) {
+                Arffornia.LOGGER.warn("Ignoring custom recipe snapshot {}: unsupported format version {}.", path, version);
+                return null;
+            }
+
+            return ArfforniaStreamCodecs.CUSTOM_RECIPE_LIST.decode(buf);
+        } catch (IOException | RuntimeException e) {
+            Arffornia.LOGGER.error("Failed to read custom recipe snapshot {}: {}", path, e.getMessage());
+            return null;
+        } finally {
+            if (buf != null) {
+                buf.release();
+            }
+        }
+    }
+
+    /**
+     * Writes the snapshot to disk. The file is replaced atomically, so a crash never leaves a truncated snapshot.
+     */
+    public static void write(List<ArfforniaApiDtos.CustomRecipe> recipes) {
+        Path path = getPath();
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        ByteBuf buf = Unpooled.buffer();
+        try {
+            buf.writeInt(MAGIC);
+            buf.writeInt(FORMAT_VERSION);
+            ArfforniaStreamCodecs.CUSTOM_RECIPE_LIST.encode(buf, recipes);
+
+            byte[] bytes = new byte[buf.readableBytes()];
+            buf.readBytes(bytes);
+
+            Files.createDirectories(path.getParent());
+            Files.write(tmp, bytes);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Arffornia.LOGGER.error("Failed to write custom recipe snapshot {}: {}", path, e.getMessage());
+        } finally {
+            buf.release();
+        }
+    }
+}
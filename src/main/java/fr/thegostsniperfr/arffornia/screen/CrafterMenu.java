@@ -6,6 +6,7 @@ import fr.thegostsniperfr.arffornia.block.ModBlocks;
 import fr.thegostsniperfr.arffornia.block.entity.CrafterBlockEntity;
 import fr.thegostsniperfr.arffornia.recipe.ClientRecipeCache;
 import net.minecraft.network.FriendlyByteBuf;
+import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.entity.player.Inventory;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.inventory.AbstractContainerMenu;
@@ -58,7 +59,14 @@ public class CrafterMenu extends AbstractContainerMenu {
         int gridY = 18;
         for (int row = 0; row < 3; ++row) {
             for (int col = 0; col < 3; ++col) {
-                this.addSlot(new SlotItemHandler(this.blockEntity.itemHandler, col + row * 3, gridX + col * 18, gridY + row * 18));
+                this.addSlot(new SlotItemHandler(this.blockEntity.itemHandler, col + row * 3, gridX + col * 18, gridY + row * 18) {
+                    @Override
+                    public void setChanged() {
+                        // Stacks merged in place by shift-clicks do not go through the item handler.
+                        blockEntity.wakeUp();
+                        super.setChanged();
+                    }
+                });
             }
         }
 
@@ -158,6 +166,14 @@ public class CrafterMenu extends AbstractContainerMenu {
         return itemstack;
     }
 
+    @Override
+    public void removed(Player pPlayer) {
+        super.removed(pPlayer);
+        if (pPlayer instanceof ServerPlayer serverPlayer) {
+            blockEntity.removeViewer(serverPlayer);
+        }
+    }
+
     @Override
     public boolean stillValid(Player pPlayer) {
         return stillValid(ContainerLevelAccess.create(blockEntity.getLevel(), blockEntity.getBlockPos()), pPlayer, ModBlocks.CRAFTER_BLOCK.get());
@@ -62,6 +62,7 @@ public class SpaceElevatorMenu extends AbstractContainerMenu {
                     @Override
                     public void setChanged() {
                         super.setChanged();
+                        blockEntity.refreshIndexedSlot(getSlotIndex());
                         blockEntity.setChanged();
                     }
                 });
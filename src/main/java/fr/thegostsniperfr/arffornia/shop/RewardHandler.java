@@ -2,10 +2,18 @@ package fr.thegostsniperfr.arffornia.shop;
 
 import fr.thegostsniperfr.arffornia.Arffornia;
 import fr.thegostsniperfr.arffornia.shop.internal.DatabaseManager;
+import fr.thegostsniperfr.arffornia.shop.internal.InventoryFitSimulator;
+import fr.thegostsniperfr.arffornia.shop.internal.KeyedSerialExecutor;
 import fr.thegostsniperfr.arffornia.shop.internal.PendingReward;
+import fr.thegostsniperfr.arffornia.shop.internal.RewardGrant;
+import fr.thegostsniperfr.arffornia.shop.internal.RewardGrantParser;
+import fr.thegostsniperfr.arffornia.shop.internal.RewardNotificationListener;
+import fr.thegostsniperfr.arffornia.shop.internal.UserIdBatcher;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
 
 import java.sql.Connection;
 import java.sql.SQLException;
@@ -15,46 +23,105 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Handles the core logic of checking for and delivering rewards to players.
  */
 public class RewardHandler {
+    /**
+     * How long shutdown waits for the reward operations already queued or running.
+     */
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
     private final DatabaseManager dbManager;
     private final MinecraftServer server;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    /**
+     * Runs database work for different players in parallel, while keeping each player's operations in order.
+     */
+    private final KeyedSerialExecutor<UUID> executor = new KeyedSerialExecutor<>(ShopConfig.REWARD_WORKER_THREADS.get(), "Arffornia-Reward-Worker");
+    private final UserIdBatcher userIdBatcher;
     private final Map<UUID, Integer> userIdCache = new ConcurrentHashMap<>();
+    /**
+     * Reverse of the user ID cache, used to find the online player targeted by a reward notification.
+     */
+    private final Map<Integer, UUID> playersByUserId = new ConcurrentHashMap<>();
+    @Nullable
+    private final RewardNotificationListener notificationListener;
 
     public RewardHandler(DatabaseManager dbManager, MinecraftServer server) {
         this.dbManager = dbManager;
         this.server = server;
+        this.userIdBatcher = new UserIdBatcher(dbManager);
+        this.notificationListener = createNotificationListener();
+    }
+
+    @Nullable
+    private RewardNotificationListener createNotificationListener() {
+        if (!ShopConfig.REWARD_NOTIFICATIONS_ENABLED.get()) {
+            return null;
+        }
+
+        try {
+            RewardNotificationListener listener = new RewardNotificationListener(dbManager, ShopConfig.REWARD_NOTIFICATION_CHANNEL.get(), this::onRewardPending);
+            listener.start();
+            return listener;
+        } catch (IllegalArgumentException e) {
+            Arffornia.LOGGER.error("Reward notifications are disabled: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Called from the notification listener when a reward was added for a user.
+     * Only the matching online player, if any, is notified. Offline players are told when they next join.
+     *
+     * @param userId The web user ID who received the reward.
+     */
+    private void onRewardPending(int userId) {
+        UUID playerUuid = playersByUserId.get(userId);
+        if (playerUuid == null) {
+            return;
+        }
+
+        server.execute(() -> {
+            ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
+            if (player == null) {
+                return;
+            }
+
+            if (ShopConfig.AUTO_CLAIM_REWARDS.get()) {
+                claimRewardsForPlayer(player);
+            } else {
+                player.sendSystemMessage(Component.literal("§aYou have pending rewards from the shop!"));
+                player.sendSystemMessage(Component.literal("§eType §b/arffornia shop claim_reward §eto receive them."));
+            }
+        });
+    }
+
+    private void cacheUserId(UUID playerUuid, int userId) {
+        userIdCache.put(playerUuid, userId);
+        playersByUserId.put(userId, playerUuid);
     }
 
     /**
      * Fetches a player's user ID from the database and adds it to the cache.
      * This is typically called when a player joins the server.
-     * The operation is submitted to an executor to avoid blocking the main server thread.
+     * Lookups of players joining at about the same time are grouped into a single query.
      *
      * @param player The player to add.
      */
     public void addPlayerToCache(ServerPlayer player) {
-        executor.submit(() -> {
-            try {
-                int userId = dbManager.getUserId(player.getUUID());
-
-                if (userId != -1) {
-                    userIdCache.put(player.getUUID(), userId);
-                    Arffornia.LOGGER.info("Cached user ID {} for player {}", userId, player.getName().getString());
-                } else {
-                    Arffornia.LOGGER.error("Player {} not found in web database, could not cache user ID.", player.getName().getString());
-                }
-            } catch (Exception e) {
-                Arffornia.LOGGER.error("Failed to cache user ID for player {}", player.getName().getString(), e);
+        // Queued as an asynchronous task so the player's claims still wait for it, without holding a worker during the batch window.
+        executor.submitAsync(player.getUUID(), () -> userIdBatcher.resolve(player.getUUID()).thenAccept(userId -> {
+            if (userId != -1) {
+                cacheUserId(player.getUUID(), userId);
+                Arffornia.LOGGER.info("Cached user ID {} for player {}", userId, player.getName().getString());
+            } else {
+                Arffornia.LOGGER.error("Player {} not found in web database, could not cache user ID.", player.getName().getString());
             }
-        });
+        }));
     }
 
     /**
@@ -64,7 +131,10 @@ public class RewardHandler {
      * @param player The player to remove.
      */
     public void removePlayerFromCache(ServerPlayer player) {
-        userIdCache.remove(player.getUUID());
+        Integer userId = userIdCache.remove(player.getUUID());
+        if (userId != null) {
+            playersByUserId.remove(userId, player.getUUID());
+        }
         Arffornia.LOGGER.info("Removed player {} from user ID cache.", player.getName().getString());
     }
 
@@ -75,25 +145,31 @@ public class RewardHandler {
      * @return A CompletableFuture that resolves to true if rewards are pending.
      */
     public CompletableFuture<Boolean> hasPendingRewards(ServerPlayer player) {
-        return CompletableFuture.supplyAsync(() -> {
+        return executor.submit(player.getUUID(), () -> {
+            // Normally cached by addPlayerToCache, queued before this check for the same player.
             Integer userId = userIdCache.get(player.getUUID());
             if (userId == null) {
-                userId = dbManager.getUserId(player.getUUID());
-                if (userId != -1) userIdCache.put(player.getUUID(), userId);
+                userId = userIdBatcher.resolve(player.getUUID()).join();
+                if (userId != -1) cacheUserId(player.getUUID(), userId);
             }
 
             return userId != -1 && dbManager.hasPendingRewards(userId);
-        }, executor);
+        });
     }
 
     /**
-     * Processes pending rewards for a player, filling their inventory with as many items as possible.
-     * This performs the entire claim process transactionally and handles partial claims gracefully.
+     * Processes pending rewards for a player, claiming every reward that fits in their inventory.
+     * Fit is simulated on a copy of the inventory, merging into partial stacks like "give" does.
+     * This performs the entire claim process in a single transaction and handles partial claims gracefully.
+     * Must be called on the server thread.
      *
      * @param player The player who is claiming their rewards.
      */
     public void claimRewardsForPlayer(ServerPlayer player) {
-        executor.submit(() -> {
+        // The inventory is copied here, on the server thread, so the worker never waits for it while holding a connection and row locks.
+        ItemStack[] inventorySnapshot = snapshotMainInventory(player);
+
+        executor.execute(player.getUUID(), () -> {
             Integer userId = userIdCache.get(player.getUUID());
             if (userId == null || userId == -1) {
                 player.sendSystemMessage(Component.literal("§cYour account is not linked to the web database."));
@@ -111,27 +187,22 @@ public class RewardHandler {
                     return;
                 }
 
-                int availableSlots = countEmptySlots(player);
+                RewardGrantParser grantParser = new RewardGrantParser(server.registryAccess());
+                InventoryFitSimulator inventory = new InventoryFitSimulator(inventorySnapshot);
+
                 List<Integer> claimedRewardIds = new ArrayList<>();
-                List<Runnable> commandsToExecute = new ArrayList<>();
+                List<RewardGrant> claimedGrants = new ArrayList<>();
                 boolean rewardsLeftOver = false;
 
+                // A reward that does not fit is skipped rather than ending the claim, so smaller rewards behind it can still be claimed.
                 for (PendingReward reward : allPendingRewards) {
-                    int slotsNeeded = countItemsToGive(reward.commands());
+                    RewardGrantParser.ParsedReward parsed = grantParser.parse(reward.commands());
 
-                    if (slotsNeeded <= availableSlots) {
-                        availableSlots -= slotsNeeded;
+                    if (inventory.tryAddAll(parsed.items(), parsed.unparsedGives())) {
                         claimedRewardIds.add(reward.id());
-
-                        commandsToExecute.add(() -> {
-                            reward.commands().forEach(command -> {
-                                String finalCommand = command.replace("{player}", player.getName().getString());
-                                server.getCommands().performPrefixedCommand(server.createCommandSourceStack(), finalCommand);
-                            });
-                        });
-                    } else if (slotsNeeded > 0) {
+                        claimedGrants.addAll(parsed.grants());
+                    } else {
                         rewardsLeftOver = true;
-                        break;
                     }
                 }
 
@@ -141,10 +212,12 @@ public class RewardHandler {
                     return;
                 }
 
-                server.execute(() -> commandsToExecute.forEach(Runnable::run));
                 dbManager.updateMultipleRewardStatuses(claimedRewardIds, "claimed", conn);
                 conn.commit();
 
+                // Grants were parsed on this worker; the server thread only applies them, in a single task.
+                server.execute(() -> applyGrants(player.getUUID(), claimedGrants));
+
                 Arffornia.LOGGER.info("Successfully claimed {} rewards for player {}", claimedRewardIds.size(), player.getName().getString());
 
                 if (rewardsLeftOver) {
@@ -162,39 +235,75 @@ public class RewardHandler {
     }
 
     /**
-     * Counts the number of empty slots in a player's main inventory.
-     * This excludes armor and off-hand slots.
+     * Applies the grants of claimed rewards. Must be called on the server thread.
      *
-     * @param player The player to check.
-     * @return The number of empty slots.
+     * @param playerUuid The UUID of the player who claimed the rewards.
+     * @param grants     The grants to apply, in order.
      */
-    private int countEmptySlots(ServerPlayer player) {
-        int emptySlots = 0;
-        // The main inventory has 36 slots (indices 0-35).
-        // getContainerSize() includes armor and offhand, so we iterate up to 36.
-        for (int i = 0; i < 36; i++) {
-            if (player.getInventory().getItem(i).isEmpty()) {
-                emptySlots++;
+    private void applyGrants(UUID playerUuid, List<RewardGrant> grants) {
+        ServerPlayer player = server.getPlayerList().getPlayer(playerUuid);
+        if (player == null) {
+            Arffornia.LOGGER.error("Player {} left before their claimed rewards could be delivered ({} grants).", playerUuid, grants.size());
+            return;
+        }
+
+        for (RewardGrant grant : grants) {
+            try {
+                grant.apply(player, server);
+            } catch (RuntimeException e) {
+                Arffornia.LOGGER.error("Failed to apply reward grant {} for player {}", grant, player.getName().getString(), e);
             }
         }
-        return emptySlots;
     }
 
     /**
-     * Counts how many items are being given by a list of commands.
-     * This is a simple approximation that assumes one "give" command requires one inventory slot.
+     * Copies the stacks of a player's main inventory.
+     * This excludes armor and off-hand slots, which "give" never fills. Must be called on the server thread.
      *
-     * @param commands The list of commands for a single reward.
-     * @return The number of slots estimated to be required.
+     * @param player The player to copy the inventory of.
+     * @return Copies of the 36 main inventory stacks.
+     */
+    private static ItemStack[] snapshotMainInventory(ServerPlayer player) {
+        ItemStack[] slots = new ItemStack[player.getInventory().items.size()];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = player.getInventory().items.get(i).copy();
+        }
+        return slots;
+    }
+
+    /**
+     * @return The number of reward operations queued or running.
+     */
+    public int getQueueDepth() {
+        return executor.getQueueDepth();
+    }
+
+    /**
+     * @return The number of players with at least one reward operation queued or running.
      */
-    private int countItemsToGive(List<String> commands) {
-        return (int) commands.stream().filter(cmd -> cmd.toLowerCase().startsWith("give ")).count();
+    public int getBusyPlayers() {
+        return executor.getActiveKeys();
     }
 
     /**
-     * Shuts down the executor service when the mod is stopping.
+     * @return The state of the database connection pool, or null if the database is unavailable.
+     */
+    @Nullable
+    public DatabaseManager.PoolStats getPoolStats() {
+        return dbManager.getPoolStats();
+    }
+
+    /**
+     * Stops the notification listener and shuts down the executor service when the mod is stopping.
+     * Waits for the reward operations already queued, so it must be called before the database is closed.
      */
     public void shutdown() {
-        executor.shutdown();
+        if (notificationListener != null) {
+            notificationListener.stop();
+        }
+        userIdBatcher.shutdown();
+        if (!executor.shutdown(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            Arffornia.LOGGER.warn("Reward operations were still running after {} seconds and were interrupted.", SHUTDOWN_TIMEOUT_SECONDS);
+        }
     }
 }
\ No newline at end of file
@@ -11,6 +11,19 @@ public class ShopConfig {
     public static ModConfigSpec.ConfigValue<String> DB_DATABASE;
     public static ModConfigSpec.ConfigValue<String> DB_USERNAME;
     public static ModConfigSpec.ConfigValue<String> DB_PASSWORD;
+    public static ModConfigSpec.IntValue POOL_MAX_SIZE;
+    public static ModConfigSpec.IntValue POOL_MIN_IDLE;
+    public static ModConfigSpec.IntValue POOL_CONNECTION_TIMEOUT_MS;
+    public static ModConfigSpec.IntValue POOL_IDLE_TIMEOUT_MS;
+    public static ModConfigSpec.IntValue POOL_MAX_LIFETIME_MS;
+    public static ModConfigSpec.IntValue POOL_LEAK_DETECTION_THRESHOLD_MS;
+    public static ModConfigSpec.IntValue PREPARE_THRESHOLD;
+    public static ModConfigSpec.IntValue PREPARED_STATEMENT_CACHE_QUERIES;
+    public static ModConfigSpec.IntValue PREPARED_STATEMENT_CACHE_SIZE_MIB;
+    public static ModConfigSpec.BooleanValue REWARD_NOTIFICATIONS_ENABLED;
+    public static ModConfigSpec.ConfigValue<String> REWARD_NOTIFICATION_CHANNEL;
+    public static ModConfigSpec.BooleanValue AUTO_CLAIM_REWARDS;
+    public static ModConfigSpec.IntValue REWARD_WORKER_THREADS;
 
     public static void register(ModConfigSpec.Builder builder) {
         builder.comment("Database configuration for the Arffornia web shop integration").push("database");
@@ -21,6 +34,66 @@ public class ShopConfig {
         DB_USERNAME = builder.define("username", "laravel");
         DB_PASSWORD = builder.define("password", "laravel");
 
+        builder.comment("Connection pool settings. Changes are applied on the next server start.").push("pool");
+
+        POOL_MAX_SIZE = builder
+                .comment("The maximum number of connections opened to the database, in use or idle.")
+                .defineInRange("maximumPoolSize", 5, 1, 64);
+
+        POOL_MIN_IDLE = builder
+                .comment("The minimum number of idle connections kept open, ready to be used.")
+                .defineInRange("minimumIdle", 2, 0, 64);
+
+        POOL_CONNECTION_TIMEOUT_MS = builder
+                .comment("How long, in milliseconds, a caller waits for a connection before failing.")
+                .defineInRange("connectionTimeoutMs", 10000, 250, 300000);
+
+        POOL_IDLE_TIMEOUT_MS = builder
+                .comment("How long, in milliseconds, a connection above the minimum may stay idle before being closed. 0 never closes them.")
+                .defineInRange("idleTimeoutMs", 600000, 0, Integer.MAX_VALUE);
+
+        POOL_MAX_LIFETIME_MS = builder
+                .comment("The maximum lifetime, in milliseconds, of a connection. Keep it below any connection time limit of the database or a proxy in front of it.")
+                .defineInRange("maxLifetimeMs", 1800000, 30000, Integer.MAX_VALUE);
+
+        POOL_LEAK_DETECTION_THRESHOLD_MS = builder
+                .comment("Logs a warning with a stack trace when a connection is held longer than this, in milliseconds. 0 disables leak detection, otherwise at least 2000.")
+                .defineInRange("leakDetectionThresholdMs", 0, 0, Integer.MAX_VALUE);
+
+        PREPARE_THRESHOLD = builder
+                .comment("The number of executions of a statement on a connection before the driver switches to a server-side prepared statement. 0 disables server-side prepared statements.")
+                .defineInRange("prepareThreshold", 5, 0, 100);
+
+        PREPARED_STATEMENT_CACHE_QUERIES = builder
+                .comment("The number of prepared statements cached per connection, so they are not parsed again by the database.")
+                .defineInRange("preparedStatementCacheQueries", 256, 0, 4096);
+
+        PREPARED_STATEMENT_CACHE_SIZE_MIB = builder
+                .comment("The maximum size, in MiB, of the prepared statement cache of each connection.")
+                .defineInRange("preparedStatementCacheSizeMiB", 5, 0, 256);
+
+        builder.pop();
+
+        builder.pop();
+
+        builder.comment("Real-time delivery of shop rewards").push("rewards");
+
+        REWARD_NOTIFICATIONS_ENABLED = builder
+                .comment("If true, the server listens for PostgreSQL notifications sent when a reward is purchased, and tells the player right away.")
+                .define("listenForNotifications", true);
+
+        REWARD_NOTIFICATION_CHANNEL = builder
+                .comment("The PostgreSQL channel the web backend notifies, with the user ID as payload.")
+                .define("notificationChannel", "pending_rewards");
+
+        AUTO_CLAIM_REWARDS = builder
+                .comment("If true, rewards are claimed automatically for online players as soon as they are purchased, instead of asking them to run the claim command.")
+                .define("autoClaim", false);
+
+        REWARD_WORKER_THREADS = builder
+                .comment("The number of reward claims processed in parallel. Claims of a single player are always processed one at a time, in order.")
+                .defineInRange("workerThreads", 4, 1, 16);
+
         builder.pop();
     }
 }
\ No newline at end of file
@@ -4,17 +4,27 @@ import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import fr.thegostsniperfr.arffornia.shop.ShopConfig;
+import org.jetbrains.annotations.Nullable;
+import org.postgresql.Driver;
 
 import java.lang.reflect.Type;
+import java.sql.Array;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 import static fr.thegostsniperfr.arffornia.Arffornia.LOGGER;
 
@@ -22,14 +32,44 @@ public class DatabaseManager {
     private final HikariDataSource dataSource;
     private final Gson gson = new Gson();
 
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder acquireNanos = new LongAdder();
+    private final LongAccumulator maxAcquireNanos = new LongAccumulator(Math::max, 0);
+
+    /**
+     * A snapshot of the connection pool state.
+     *
+     * @param active           The number of connections in use.
+     * @param idle             The number of open connections waiting to be used.
+     * @param waiting          The number of threads waiting for a connection.
+     * @param maxSize          The maximum size of the pool.
+     * @param acquired         The number of connections acquired since the server started.
+     * @param avgAcquireMillis The average time spent waiting for a connection.
+     * @param maxAcquireMillis The longest time spent waiting for a connection.
+     */
+    public record PoolStats(int active, int idle, int waiting, int maxSize, long acquired, double avgAcquireMillis, double maxAcquireMillis) {
+    }
+
     public DatabaseManager() {
         HikariDataSource tempDataSource;
         try {
             HikariConfig config = new HikariConfig();
-            config.setJdbcUrl("jdbc:postgresql://" + ShopConfig.DB_HOST.get() + ":" + ShopConfig.DB_PORT.get() + "/" + ShopConfig.DB_DATABASE.get());
+            config.setJdbcUrl(getJdbcUrl());
             config.setUsername(ShopConfig.DB_USERNAME.get());
             config.setPassword(ShopConfig.DB_PASSWORD.get());
-            config.setMaximumPoolSize(5);
+            config.setPoolName("Arffornia-Shop-Pool");
+            config.setMaximumPoolSize(ShopConfig.POOL_MAX_SIZE.get());
+            config.setMinimumIdle(Math.min(ShopConfig.POOL_MIN_IDLE.get(), ShopConfig.POOL_MAX_SIZE.get()));
+            config.setConnectionTimeout(ShopConfig.POOL_CONNECTION_TIMEOUT_MS.get());
+            config.setIdleTimeout(ShopConfig.POOL_IDLE_TIMEOUT_MS.get());
+            config.setMaxLifetime(ShopConfig.POOL_MAX_LIFETIME_MS.get());
+            config.setLeakDetectionThreshold(ShopConfig.POOL_LEAK_DETECTION_THRESHOLD_MS.get());
+
+            // Statements are prepared again on every call, but the driver caches them per connection,
+            // and switches to server-side prepared statements once one was run prepareThreshold times.
+            config.addDataSourceProperty("prepareThreshold", ShopConfig.PREPARE_THRESHOLD.get());
+            config.addDataSourceProperty("preparedStatementCacheQueries", ShopConfig.PREPARED_STATEMENT_CACHE_QUERIES.get());
+            config.addDataSourceProperty("preparedStatementCacheSizeMiB", ShopConfig.PREPARED_STATEMENT_CACHE_SIZE_MIB.get());
 
             tempDataSource = new HikariDataSource(config);
             LOGGER.info("Database connection pool initialized successfully.");
@@ -42,6 +82,30 @@ public class DatabaseManager {
         this.dataSource = tempDataSource;
     }
 
+    private static String getJdbcUrl() {
+        return "jdbc:postgresql://" + ShopConfig.DB_HOST.get() + ":" + ShopConfig.DB_PORT.get() + "/" + ShopConfig.DB_DATABASE.get();
+    }
+
+    /**
+     * Opens a new connection outside of the pool, for long-lived uses such as LISTEN.
+     * The caller is responsible for closing it.
+     *
+     * @return A new database connection.
+     * @throws SQLException if the connection cannot be established.
+     */
+    public Connection openDedicatedConnection() throws SQLException {
+        Properties props = new Properties();
+        props.setProperty("user", ShopConfig.DB_USERNAME.get());
+        props.setProperty("password", ShopConfig.DB_PASSWORD.get());
+
+        // The driver is used directly, as DriverManager does not see drivers loaded by the mod class loader.
+        Connection connection = new Driver().connect(getJdbcUrl(), props);
+        if (connection == null) {
+            throw new SQLException("The PostgreSQL driver did not accept the JDBC URL.");
+        }
+        return connection;
+    }
+
     /**
      * Gets a connection from the pool.
      *
@@ -53,7 +117,41 @@ public class DatabaseManager {
             throw new SQLException("Database connection is not available.");
         }
 
-        return dataSource.getConnection();
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        long elapsed = System.nanoTime() - start;
+
+        acquireCount.increment();
+        acquireNanos.add(elapsed);
+        maxAcquireNanos.accumulate(elapsed);
+        return connection;
+    }
+
+    /**
+     * @return The current state of the connection pool, or null if the pool is unavailable.
+     */
+    @Nullable
+    public PoolStats getPoolStats() {
+        if (dataSource == null) {
+            return null;
+        }
+
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        if (pool == null) {
+            return null;
+        }
+
+        long acquired = acquireCount.sum();
+        double avgAcquireMillis = acquired == 0 ? 0 : acquireNanos.sum() / (double) acquired / 1_000_000.0;
+        return new PoolStats(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getThreadsAwaitingConnection(),
+                dataSource.getMaximumPoolSize(),
+                acquired,
+                avgAcquireMillis,
+                maxAcquireNanos.get() / 1_000_000.0
+        );
     }
 
     /**
@@ -85,6 +183,45 @@ public class DatabaseManager {
         return -1;
     }
 
+    /**
+     * Retrieves the internal user IDs of several players in a single query.
+     *
+     * @param playerUuids The players' UUIDs.
+     * @return The user ID of each player found. Players not in the database are absent from the map.
+     * @throws SQLException if the query fails or the database is down.
+     */
+    public Map<UUID, Integer> getUserIds(Collection<UUID> playerUuids) throws SQLException {
+        Map<UUID, Integer> userIds = new HashMap<>();
+        if (playerUuids.isEmpty()) {
+            return userIds;
+        }
+
+        Map<String, UUID> uuidsByDbValue = new HashMap<>();
+        for (UUID playerUuid : playerUuids) {
+            uuidsByDbValue.put(playerUuid.toString().replace("-", ""), playerUuid);
+        }
+
+        final String sql = "SELECT id, uuid FROM users WHERE uuid = ANY(?);";
+
+        try (Connection conn = getConnection(); PreparedStatement req = conn.prepareStatement(sql)) {
+            Array uuidArray = conn.createArrayOf("varchar", uuidsByDbValue.keySet().toArray());
+            try {
+                req.setArray(1, uuidArray);
+                try (ResultSet res = req.executeQuery()) {
+                    while (res.next()) {
+                        UUID playerUuid = uuidsByDbValue.get(res.getString("uuid"));
+                        if (playerUuid != null) {
+                            userIds.put(playerUuid, res.getInt("id"));
+                        }
+                    }
+                }
+            } finally {
+                uuidArray.free();
+            }
+        }
+
+        return userIds;
+    }
 
     /**
      * Checks if a user has any pending rewards without fetching them.
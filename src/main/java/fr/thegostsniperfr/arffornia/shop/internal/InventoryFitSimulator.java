@@ -0,0 +1,86 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+
+import java.util.List;
+
+/**
+ * Simulates adding items to a copy of a player's main inventory, merging into partial stacks first,
+ * to know whether a reward will fit before it is claimed.
+ */
+public class InventoryFitSimulator {
+    private ItemStack[] slots;
+
+    /**
+     * @param mainInventory Copies of the player's main inventory stacks. They are modified by the simulation.
+     */
+    public InventoryFitSimulator(ItemStack[] mainInventory) {
+        this.slots = mainInventory;
+    }
+
+    /**
+     * Adds all the given stacks if they all fit. Otherwise, the simulated inventory is left unchanged.
+     *
+     * @param stacks         The stacks to add.
+     * @param reservedSlots  Additional empty slots required, e.g. for items that could not be parsed.
+     * @return true if everything fit and was added.
+     */
+    public boolean tryAddAll(List<ItemStack> stacks, int reservedSlots) {
+        ItemStack[] checkpoint = new ItemStack[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            checkpoint[i] = slots[i].copy();
+        }
+
+        boolean fits = true;
+        for (ItemStack stack : stacks) {
+            if (!add(stack.copy())) {
+                fits = false;
+                break;
+            }
+        }
+        for (int i = 0; fits && i < reservedSlots; i++) {
+            fits = reserveEmptySlot();
+        }
+
+        if (!fits) {
+            slots = checkpoint;
+        }
+        return fits;
+    }
+
+    private boolean add(ItemStack stack) {
+        int maxStackSize = stack.getMaxStackSize();
+
+        // Merge into existing stacks first, as Inventory#add does.
+        for (ItemStack slot : slots) {
+            if (stack.isEmpty()) {
+                return true;
+            }
+            if (!slot.isEmpty() && ItemStack.isSameItemSameComponents(slot, stack) && slot.getCount() < maxStackSize) {
+                int moved = Math.min(stack.getCount(), maxStackSize - slot.getCount());
+                slot.grow(moved);
+                stack.shrink(moved);
+            }
+        }
+
+        for (int i = 0; i < slots.length && !stack.isEmpty(); i++) {
+            if (slots[i].isEmpty()) {
+                slots[i] = stack.split(maxStackSize);
+            }
+        }
+
+        return stack.isEmpty();
+    }
+
+    private boolean reserveEmptySlot() {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].isEmpty()) {
+                // Any non-empty placeholder marks the slot as used.
+                slots[i] = new ItemStack(Items.BARRIER);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,135 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs tasks on a bounded thread pool while keeping tasks that share a key strictly ordered.
+ * Tasks with different keys run in parallel; a task only starts once the previous task for its key has completed.
+ *
+ * @param <K> The type of the key, e.g. a player UUID.
+ */
+public class KeyedSerialExecutor<K> {
+    private final ExecutorService executor;
+    private final Map<K, CompletableFuture<?>> tails = new HashMap<>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /**
+     * @param threads    The maximum number of tasks running at the same time.
+     * @param threadName The prefix of the worker thread names.
+     */
+    public KeyedSerialExecutor(int threads, String threadName) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, threadName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues a task behind the previous tasks submitted with the same key.
+     *
+     * @param key  The key the task is ordered by.
+     * @param task The task to run.
+     * @return A future completed with the task's result, or exceptionally if it threw.
+     */
+    public <T> CompletableFuture<T> submit(K key, Supplier<T> task) {
+        return enqueue(key, tail -> tail == null
+                ? CompletableFuture.supplyAsync(task, executor)
+                : tail.handleAsync((ignored, ex) -> task.get(), executor));
+    }
+
+    /**
+     * Queues an asynchronous task behind the previous tasks submitted with the same key.
+     * The next task for the key starts once the future returned by this task completes, without holding a worker thread meanwhile.
+     *
+     * @param key  The key the task is ordered by.
+     * @param task Starts the asynchronous task.
+     * @return A future completed with the task's result.
+     */
+    public <T> CompletableFuture<T> submitAsync(K key, Supplier<CompletableFuture<T>> task) {
+        return enqueue(key, tail -> {
+            CompletableFuture<Void> previous = tail == null
+                    ? CompletableFuture.completedFuture(null)
+                    : tail.handle((ignored, ex) -> null);
+            return previous.thenComposeAsync(ignored -> task.get(), executor);
+        });
+    }
+
+    private <T> CompletableFuture<T> enqueue(K key, Function<CompletableFuture<?>, CompletableFuture<T>> chain) {
+        pending.incrementAndGet();
+
+        CompletableFuture<T> result;
+        synchronized (tails) {
+            // The previous task's outcome is ignored: a failed claim must not block the next one.
+            try {
+                result = chain.apply(tails.get(key));
+            } catch (RejectedExecutionException e) {
+                pending.decrementAndGet();
+                return CompletableFuture.failedFuture(e);
+            }
+            tails.put(key, result);
+        }
+
+        result.whenComplete((value, ex) -> {
+            pending.decrementAndGet();
+            synchronized (tails) {
+                tails.remove(key, result);
+            }
+        });
+        return result;
+    }
+
+    public CompletableFuture<Void> execute(K key, Runnable task) {
+        return submit(key, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return The number of tasks queued or running.
+     */
+    public int getQueueDepth() {
+        return pending.get();
+    }
+
+    /**
+     * @return The number of keys with at least one task queued or running.
+     */
+    public int getActiveKeys() {
+        synchronized (tails) {
+            return tails.size();
+        }
+    }
+
+    /**
+     * Stops accepting tasks and waits for the queued and running ones to finish.
+     * Tasks submitted afterwards complete exceptionally with a {@link RejectedExecutionException}.
+     *
+     * @param timeout How long to wait before interrupting the tasks still running.
+     * @param unit    The unit of the timeout.
+     * @return true if every task finished in time.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        executor.shutdown();
+        try {
+            if (executor.awaitTermination(timeout, unit)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        return false;
+    }
+}
@@ -0,0 +1,79 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import net.minecraft.core.Holder;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.effect.MobEffectInstance;
+import net.minecraft.world.entity.item.ItemEntity;
+import net.minecraft.world.item.ItemStack;
+
+/**
+ * A single action of a reward, parsed from one of its commands by {@link RewardGrantParser}.
+ * Grants are applied directly to the player on the server thread, without going through command dispatch.
+ */
+public sealed interface RewardGrant {
+    /**
+     * Applies the grant. Must be called on the server thread.
+     *
+     * @param player The player claiming the reward.
+     * @param server The server instance.
+     */
+    void apply(ServerPlayer player, MinecraftServer server);
+
+    /**
+     * Gives an item stack to the player, dropping what does not fit at their feet like {@code /give} does.
+     *
+     * @param stack The stack to give. Its count may exceed the max stack size.
+     */
+    record ItemGrant(ItemStack stack) implements RewardGrant {
+        @Override
+        public void apply(ServerPlayer player, MinecraftServer server) {
+            int remaining = stack.getCount();
+            int maxStackSize = stack.getMaxStackSize();
+
+            while (remaining > 0) {
+                ItemStack toGive = stack.copyWithCount(Math.min(remaining, maxStackSize));
+                remaining -= toGive.getCount();
+
+                if (!player.getInventory().add(toGive) || !toGive.isEmpty()) {
+                    ItemEntity itemEntity = player.drop(toGive, false);
+                    if (itemEntity != null) {
+                        itemEntity.setNoPickUpDelay();
+                        itemEntity.setTarget(player.getUUID());
+                    }
+                }
+            }
+
+            player.containerMenu.broadcastChanges();
+        }
+    }
+
+    /**
+     * Applies a mob effect to the player.
+     *
+     * @param effect        The effect to apply.
+     * @param duration      The duration in ticks, or {@link MobEffectInstance#INFINITE_DURATION}.
+     * @param amplifier     The effect amplifier.
+     * @param hideParticles Whether to hide the effect particles.
+     */
+    record EffectGrant(Holder<MobEffect> effect, int duration, int amplifier, boolean hideParticles) implements RewardGrant {
+        @Override
+        public void apply(ServerPlayer player, MinecraftServer server) {
+            player.addEffect(new MobEffectInstance(effect, duration, amplifier, false, !hideParticles));
+        }
+    }
+
+    /**
+     * Fallback for commands that are not recognized: dispatched as a server command with {@code {player}} substituted.
+     *
+     * @param command The raw command string.
+     */
+    record CommandGrant(String command) implements RewardGrant {
+        @Override
+        public void apply(ServerPlayer player, MinecraftServer server) {
+            String finalCommand = command.replace("{player}", player.getName().getString());
+            server.getCommands().performPrefixedCommand(server.createCommandSourceStack(), finalCommand);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.commands.arguments.item.ItemParser;
+import net.minecraft.core.Holder;
+import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.world.effect.MobEffect;
+import net.minecraft.world.effect.MobEffectInstance;
+import net.minecraft.world.item.ItemStack;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Parses the commands of a reward into {@link RewardGrant}s, off the server thread.
+ * Recognized commands targeting {@code {player}} become typed grants:
+ * <ul>
+ *     <li>{@code give {player} <item>[components] [count]}</li>
+ *     <li>{@code effect give {player} <effect> [seconds|infinite] [amplifier] [hideParticles]}</li>
+ * </ul>
+ * Any other command is kept as a {@link RewardGrant.CommandGrant}.
+ */
+public class RewardGrantParser {
+    private static final String PLAYER_PLACEHOLDER = "{player}";
+
+    private final HolderLookup.Provider registries;
+    private final ItemParser itemParser;
+
+    public RewardGrantParser(HolderLookup.Provider registries) {
+        this.registries = registries;
+        this.itemParser = new ItemParser(registries);
+    }
+
+    /**
+     * The grants of a reward.
+     *
+     * @param grants        The grants, in the order of the reward's commands.
+     * @param items         The item stacks given by the reward, used to simulate inventory fit.
+     * @param unparsedGives The number of give commands that could not be parsed, each assumed to need one empty slot.
+     */
+    public record ParsedReward(List<RewardGrant> grants, List<ItemStack> items, int unparsedGives) {
+    }
+
+    public ParsedReward parse(List<String> commands) {
+        List<RewardGrant> grants = new ArrayList<>(commands.size());
+        List<ItemStack> items = new ArrayList<>();
+        int unparsedGives = 0;
+
+        for (String command : commands) {
+            String lowerCase = command.toLowerCase(Locale.ROOT);
+
+            if (lowerCase.startsWith("give ")) {
+                ItemStack stack = parseGive(command);
+                if (stack != null) {
+                    grants.add(new RewardGrant.ItemGrant(stack));
+                    items.add(stack);
+                    continue;
+                }
+                unparsedGives++;
+            } else if (lowerCase.startsWith("effect give ")) {
+                RewardGrant.EffectGrant effect = parseEffect(command);
+                if (effect != null) {
+                    grants.add(effect);
+                    continue;
+                }
+            }
+
+            grants.add(new RewardGrant.CommandGrant(command));
+        }
+
+        return new ParsedReward(grants, items, unparsedGives);
+    }
+
+    @Nullable
+    private ItemStack parseGive(String command) {
+        StringReader reader = new StringReader(command);
+        try {
+            reader.readUnquotedString(); // "give"
+            if (!readPlayerTarget(reader)) {
+                return null;
+            }
+
+            ItemParser.ItemResult result = itemParser.parse(reader);
+            reader.skipWhitespace();
+            int count = reader.canRead() ? reader.readInt() : 1;
+            if (count <= 0 || !isAtEnd(reader)) {
+                return null;
+            }
+
+            return new ItemStack(result.item(), count, result.components());
+        } catch (CommandSyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private RewardGrant.EffectGrant parseEffect(String command) {
+        StringReader reader = new StringReader(command);
+        try {
+            reader.readUnquotedString(); // "effect"
+            reader.skipWhitespace();
+            reader.readUnquotedString(); // "give"
+            if (!readPlayerTarget(reader)) {
+                return null;
+            }
+
+            ResourceLocation effectId = ResourceLocation.read(reader);
+            Optional<Holder.Reference<MobEffect>> effect = registries.lookupOrThrow(Registries.MOB_EFFECT)
+                    .get(ResourceKey.create(Registries.MOB_EFFECT, effectId));
+            if (effect.isEmpty()) {
+                return null;
+            }
+
+            boolean instantenous = effect.get().value().isInstantenous();
+            int duration = instantenous ? 1 : 30 * 20;
+            int amplifier = 0;
+            boolean hideParticles = false;
+
+            reader.skipWhitespace();
+            if (reader.canRead()) {
+                String seconds = reader.readUnquotedString();
+                if (seconds.equals("infinite")) {
+                    duration = MobEffectInstance.INFINITE_DURATION;
+                } else {
+                    int value = Integer.parseInt(seconds);
+                    if (value < 1 || value > 1000000) {
+                        return null;
+                    }
+                    duration = instantenous ? value : value * 20;
+                }
+            }
+            reader.skipWhitespace();
+            if (reader.canRead()) {
+                amplifier = reader.readInt();
+                if (amplifier < 0 || amplifier > 255) {
+                    return null;
+                }
+            }
+            reader.skipWhitespace();
+            if (reader.canRead()) {
+                hideParticles = reader.readBoolean();
+            }
+            if (!isAtEnd(reader)) {
+                return null;
+            }
+
+            return new RewardGrant.EffectGrant(effect.get(), duration, amplifier, hideParticles);
+        } catch (CommandSyntaxException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the target argument. Only the {@code {player}} placeholder is handled directly;
+     * selectors and literal names are left to command dispatch.
+     */
+    private static boolean readPlayerTarget(StringReader reader) {
+        reader.skipWhitespace();
+        if (!reader.getRemaining().startsWith(PLAYER_PLACEHOLDER + " ")) {
+            return false;
+        }
+        reader.setCursor(reader.getCursor() + PLAYER_PLACEHOLDER.length());
+        reader.skipWhitespace();
+        return true;
+    }
+
+    private static boolean isAtEnd(StringReader reader) {
+        reader.skipWhitespace();
+        return !reader.canRead();
+    }
+}
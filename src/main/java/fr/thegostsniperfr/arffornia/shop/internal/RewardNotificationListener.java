@@ -0,0 +1,132 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.IntConsumer;
+import java.util.regex.Pattern;
+
+import static fr.thegostsniperfr.arffornia.Arffornia.LOGGER;
+
+/**
+ * Listens on a PostgreSQL notification channel for new pending rewards.
+ * The web backend sends the ID of the user who received a reward as the notification payload,
+ * e.g. {@code NOTIFY pending_rewards, '42'}.
+ * <p>
+ * A single dedicated connection is held by a background thread, and re-opened with an increasing delay if it is lost.
+ */
+public class RewardNotificationListener {
+    private static final Pattern CHANNEL_NAME = Pattern.compile("[a-z_][a-z0-9_]*");
+    private static final int POLL_TIMEOUT_MILLIS = 5000;
+    private static final long MIN_RECONNECT_DELAY_MILLIS = 1000;
+    private static final long MAX_RECONNECT_DELAY_MILLIS = 60000;
+
+    private final DatabaseManager dbManager;
+    private final String channel;
+    private final IntConsumer onRewardPending;
+    private final Thread thread;
+
+    private volatile boolean running = false;
+    private volatile Connection connection;
+
+    /**
+     * @param dbManager       The database manager used to open the listener connection.
+     * @param channel         The notification channel to listen on.
+     * @param onRewardPending Called from the listener thread with the user ID of each notification.
+     */
+    public RewardNotificationListener(DatabaseManager dbManager, String channel, IntConsumer onRewardPending) {
+        if (!CHANNEL_NAME.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid notification channel name: " + channel);
+        }
+
+        this.dbManager = dbManager;
+        this.channel = channel;
+        this.onRewardPending = onRewardPending;
+        this.thread = new Thread(this::run, "Arffornia-Reward-Listener");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+        closeConnection();
+    }
+
+    private void run() {
+        long reconnectDelay = MIN_RECONNECT_DELAY_MILLIS;
+
+        while (running) {
+            try {
+                connection = dbManager.openDedicatedConnection();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                LOGGER.info("Listening for pending reward notifications on channel '{}'.", channel);
+                reconnectDelay = MIN_RECONNECT_DELAY_MILLIS;
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                LOGGER.warn("Reward notification listener lost its database connection: {}. Reconnecting in {} ms.", e.getMessage(), reconnectDelay);
+            } finally {
+                closeConnection();
+            }
+
+            if (!running) {
+                break;
+            }
+            try {
+                Thread.sleep(reconnectDelay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            reconnectDelay = Math.min(reconnectDelay * 2, MAX_RECONNECT_DELAY_MILLIS);
+        }
+    }
+
+    private void dispatch(String payload) {
+        int userId;
+        try {
+            userId = Integer.parseInt(payload.trim());
+        } catch (NumberFormatException e) {
+            LOGGER.warn("Ignoring pending reward notification with an invalid payload: '{}'", payload);
+            return;
+        }
+
+        try {
+            onRewardPending.accept(userId);
+        } catch (RuntimeException e) {
+            LOGGER.error("Failed to handle pending reward notification for user ID {}", userId, e);
+        }
+    }
+
+    private void closeConnection() {
+        Connection current = connection;
+        connection = null;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package fr.thegostsniperfr.arffornia.shop.internal;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static fr.thegostsniperfr.arffornia.Arffornia.LOGGER;
+
+/**
+ * Coalesces user ID lookups that arrive close together, such as during a join wave after a restart,
+ * into a single {@link DatabaseManager#getUserIds} query.
+ * A batch is sent once the flush window has elapsed since its first lookup, or as soon as it is full.
+ */
+public class UserIdBatcher {
+    private static final long FLUSH_WINDOW_MILLIS = 50;
+    private static final int MAX_BATCH_SIZE = 100;
+
+    private final DatabaseManager dbManager;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "Arffornia-UserId-Batcher");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<UUID, CompletableFuture<Integer>> pending = new HashMap<>();
+
+    public UserIdBatcher(DatabaseManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /**
+     * Resolves the user ID of a player as part of the next batch.
+     *
+     * @param playerUuid The player's UUID.
+     * @return A future completed with the user ID, or -1 if the player is not found or the database is down.
+     */
+    public CompletableFuture<Integer> resolve(UUID playerUuid) {
+        CompletableFuture<Integer> future;
+        boolean firstOfBatch;
+        boolean full;
+
+        synchronized (this) {
+            CompletableFuture<Integer> existing = pending.get(playerUuid);
+            if (existing != null) {
+                return existing;
+            }
+
+            future = new CompletableFuture<>();
+            firstOfBatch = pending.isEmpty();
+            pending.put(playerUuid, future);
+            full = pending.size() >= MAX_BATCH_SIZE;
+        }
+
+        if (full) {
+            scheduler.execute(this::flush);
+        } else if (firstOfBatch) {
+            scheduler.schedule(this::flush, FLUSH_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return future;
+    }
+
+    private void flush() {
+        Map<UUID, CompletableFuture<Integer>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new HashMap<>();
+        }
+
+        Map<UUID, Integer> userIds;
+        try {
+            userIds = dbManager.getUserIds(batch.keySet());
+        } catch (SQLException e) {
+            LOGGER.error("Could not fetch user IDs for {} players", batch.size(), e);
+            userIds = Map.of();
+        }
+
+        LOGGER.debug("Resolved {} of {} user IDs in one query.", userIds.size(), batch.size());
+        for (Map.Entry<UUID, CompletableFuture<Integer>> entry : batch.entrySet()) {
+            entry.getValue().complete(userIds.getOrDefault(entry.getKey(), -1));
+        }
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+}